@@ -2,8 +2,10 @@ package com.code_space.code_space;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CodeSpaceApplication {
 
 	public static void main(String[] args) {
@@ -1,7 +1,31 @@
 package com.code_space.code_space.config;
 
+import com.code_space.code_space.service.OutboundQueueMonitor;
+import com.code_space.code_space.service.PresenceTracker;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -10,20 +34,191 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Clustered mode: relay to an external STOMP broker shared by all nodes
+    @Value("${app.websocket.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    // Transport and channel limits
+    @Value("${app.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.send-time-limit-ms:15000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.websocket.message-size-limit:131072}")
+    private int messageSizeLimit;
+
+    @Value("${app.websocket.inbound.pool-size:16}")
+    private int inboundPoolSize;
+
+    @Value("${app.websocket.outbound.pool-size:16}")
+    private int outboundPoolSize;
+
+    @Value("${app.websocket.channel-queue-capacity:10000}")
+    private int channelQueueCapacity;
+
+    @Autowired
+    private PresenceTracker presenceTracker;
+
+    @Autowired
+    private OutboundQueueMonitor outboundQueueMonitor;
+
+    private final ThreadPoolTaskScheduler heartbeatScheduler = createHeartbeatScheduler();
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple memory-based message broker
-        config.enableSimpleBroker("/topic", "/queue");
+        if (relayEnabled) {
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    // Let /user destinations resolve to sessions connected to other nodes
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            // Enable a simple memory-based message broker
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(heartbeatScheduler);
+        }
         // Define prefix for messages
         config.setApplicationDestinationPrefixes("/app");
         // Define prefix for user-specific destinations
         config.setUserDestinationPrefix("/user");
+        // Each session's frames are kept in order by OutboundQueueMonitor, which also applies priority
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(OutboundTrackingHandler::new);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundPoolSize)
+                .maxPoolSize(inboundPoolSize)
+                .queueCapacity(channelQueueCapacity);
+
+        // Any inbound frame, STOMP heart-beats included, proves the session is alive
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                if (sessionId != null) {
+                    presenceTracker.touchSession(sessionId);
+                }
+                return message;
+            }
+        });
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize)
+                .queueCapacity(channelQueueCapacity);
+
+        registration.interceptors(new ExecutorChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                return outboundQueueMonitor.schedule(message, channel);
+            }
+
+            @Override
+            public void afterMessageHandled(Message<?> message, MessageChannel channel,
+                                            MessageHandler handler, Exception ex) {
+                outboundQueueMonitor.onHandled(message, channel);
+            }
+        });
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Frames from one session are handled in order even though the inbound pool has several threads
+        registry.setPreserveReceiveOrder(true);
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
-}
\ No newline at end of file
+
+    /**
+     * Hands the STOMP handler a session that reports each frame once it reaches the socket,
+     * which is what {@link OutboundQueueMonitor} counts queue depth against.
+     */
+    private class OutboundTrackingHandler extends WebSocketHandlerDecorator {
+
+        private final Map<String, WebSocketSession> trackedSessions = new ConcurrentHashMap<>();
+
+        OutboundTrackingHandler(WebSocketHandler delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+            WebSocketSession tracked = new WebSocketSessionDecorator(session) {
+                @Override
+                public void sendMessage(WebSocketMessage<?> message) throws IOException {
+                    super.sendMessage(message);
+                    outboundQueueMonitor.onWritten(getId(), message);
+                }
+            };
+            trackedSessions.put(session.getId(), tracked);
+            outboundQueueMonitor.register(session);
+            super.afterConnectionEstablished(tracked);
+        }
+
+        @Override
+        public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+            super.handleMessage(trackedSessions.getOrDefault(session.getId(), session), message);
+        }
+
+        @Override
+        public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+            super.handleTransportError(trackedSessions.getOrDefault(session.getId(), session), exception);
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+            WebSocketSession tracked = trackedSessions.remove(session.getId());
+            outboundQueueMonitor.unregister(session.getId());
+            super.afterConnectionClosed(tracked != null ? tracked : session, closeStatus);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatScheduler.shutdown();
+    }
+
+    private static ThreadPoolTaskScheduler createHeartbeatScheduler() {
+        // Not a bean, so it does not replace the scheduler used by @Scheduled jobs
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("ws-heartbeat-");
+        scheduler.initialize();
+        return scheduler;
+    }
+}
@@ -2,6 +2,9 @@ package com.code_space.code_space.controller;
 
 import com.code_space.code_space.dto.*;
 import com.code_space.code_space.service.ChatService;
+import com.code_space.code_space.service.ChatTranscriptWriter;
+import com.code_space.code_space.service.RateLimitExceededException;
+import com.code_space.code_space.service.RoomRateLimiter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -10,10 +13,13 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -26,6 +32,9 @@ public class ChatController {
     @Autowired
     private ChatService chatService;
 
+    @Autowired
+    private RoomRateLimiter rateLimiter;
+
     @GetMapping
     @Operation(
             summary = "Get chat messages",
@@ -54,6 +63,97 @@ public class ChatController {
         }
     }
 
+    @GetMapping("/history")
+    @Operation(
+            summary = "Get chat history",
+            description = "Retrieve chat messages page by page using the cursors returned with each page. " +
+                    "Pass prevCursor as 'before' to load older messages or nextCursor as 'after' to load newer ones",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Chat history retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit, or access denied")
+    })
+    public ResponseEntity<?> getChatHistory(
+            @Parameter(description = "Room ID", required = true) @PathVariable Long roomId,
+            @Parameter(description = "Cursor to load messages older than") @RequestParam(required = false) String before,
+            @Parameter(description = "Cursor to load messages newer than") @RequestParam(required = false) String after,
+            @Parameter(description = "Maximum number of messages", example = "50") @RequestParam(defaultValue = "50") int limit
+    ) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            String userEmail = authentication.getName();
+
+            ChatHistoryResponse history = chatService.getChatHistory(roomId, userEmail, before, after, limit);
+            return ResponseEntity.ok(history);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/changes")
+    @Operation(
+            summary = "Get chat changes",
+            description = "Retrieve messages sent, edited or deleted after the given sequence number. " +
+                    "Call without 'since' to get the current sequence number, then pass latestSeq from each response. " +
+                    "If resyncRequired is set, reload the chat history and continue from the returned latestSeq",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Chat changes retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid sequence number or limit, or access denied")
+    })
+    public ResponseEntity<?> getChatChanges(
+            @Parameter(description = "Room ID", required = true) @PathVariable Long roomId,
+            @Parameter(description = "Last sequence number seen") @RequestParam(required = false) Long since,
+            @Parameter(description = "Maximum number of changes", example = "200") @RequestParam(defaultValue = "200") int limit
+    ) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            String userEmail = authentication.getName();
+
+            ChatChangesResponse changes = chatService.getChatChanges(roomId, userEmail, since, limit);
+            return ResponseEntity.ok(changes);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    @Operation(
+            summary = "Export chat transcript",
+            description = "Stream the room's full chat transcript as NDJSON or CSV",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Transcript streamed"),
+            @ApiResponse(responseCode = "400", description = "Unsupported format or access denied")
+    })
+    public ResponseEntity<?> exportChat(
+            @Parameter(description = "Room ID", required = true) @PathVariable Long roomId,
+            @Parameter(description = "ndjson or csv", example = "ndjson") @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            String userEmail = authentication.getName();
+
+            ChatTranscriptWriter.Format exportFormat = ChatTranscriptWriter.Format.fromParam(format);
+            chatService.verifyExportAccess(roomId, userEmail);
+
+            StreamingResponseBody body = out -> chatService.exportTranscript(roomId, exportFormat, out);
+            return ResponseEntity.ok()
+                    .contentType(exportFormat.getMediaType())
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"room-" + roomId + "-chat." + exportFormat.getExtension() + "\"")
+                    .body(body);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/recent")
     @Operation(
             summary = "Get recent chat messages",
@@ -82,7 +182,8 @@ public class ChatController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Message sent successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid message content"),
-            @ApiResponse(responseCode = "403", description = "Chat disabled or access denied")
+            @ApiResponse(responseCode = "403", description = "Chat disabled or access denied"),
+            @ApiResponse(responseCode = "429", description = "Sending too fast - retry after the Retry-After delay")
     })
     public ResponseEntity<?> sendMessage(
             @PathVariable Long roomId,
@@ -92,8 +193,13 @@ public class ChatController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String userEmail = authentication.getName();
 
+            rateLimiter.acquire(RoomRateLimiter.Scope.CHAT, roomId, userEmail);
             ChatMessageResponse message = chatService.sendMessage(roomId, userEmail, request);
             return ResponseEntity.ok(message);
+        } catch (RateLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new MessageResponse("Error: " + e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(new MessageResponse("Error: " + e.getMessage()));
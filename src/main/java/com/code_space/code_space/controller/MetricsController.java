@@ -0,0 +1,126 @@
+package com.code_space.code_space.controller;
+
+import com.code_space.code_space.dto.MessageResponse;
+import com.code_space.code_space.service.ActiveParticipantCounter;
+import com.code_space.code_space.service.ChatChangeLog;
+import com.code_space.code_space.service.ChatIngestPipeline;
+import com.code_space.code_space.service.ChatRetentionJob;
+import com.code_space.code_space.service.ReactionBurstAggregator;
+import com.code_space.code_space.service.ReactionStatistics;
+import com.code_space.code_space.service.ReactionStore;
+import com.code_space.code_space.service.RoomCache;
+import com.code_space.code_space.service.RoomRateLimiter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/metrics")
+@Tag(name = "Metrics", description = "Operational counters for chat, reactions and room caches")
+public class MetricsController {
+
+    @Autowired
+    private ChatIngestPipeline chatIngestPipeline;
+
+    @Autowired
+    private ChatRetentionJob chatRetentionJob;
+
+    @Autowired
+    private ChatChangeLog chatChangeLog;
+
+    @Autowired
+    private RoomRateLimiter rateLimiter;
+
+    @Autowired
+    private ReactionStore reactionStore;
+
+    @Autowired
+    private ReactionBurstAggregator reactionBurstAggregator;
+
+    @Autowired
+    private ReactionStatistics reactionStatistics;
+
+    @Autowired
+    private RoomCache roomCache;
+
+    @Autowired
+    private ActiveParticipantCounter participantCounter;
+
+    @GetMapping("/chat")
+    @Operation(
+            summary = "Get chat metrics",
+            description = "Retrieve chat ingest batching, retention and change feed counters",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<?> getChatMetrics() {
+        try {
+            Map<String, Object> metrics = new HashMap<>();
+            metrics.put("ingest", chatIngestPipeline.getMetrics());
+            metrics.put("retention", chatRetentionJob.getMetrics());
+            metrics.put("changes", chatChangeLog.getMetrics());
+            return ResponseEntity.ok(metrics);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/rate-limits")
+    @Operation(
+            summary = "Get rate limit metrics",
+            description = "Retrieve per-user and per-room rate limiter counters for chat and reactions",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<?> getRateLimitMetrics() {
+        try {
+            return ResponseEntity.ok(rateLimiter.getMetrics());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/reactions")
+    @Operation(
+            summary = "Get reaction metrics",
+            description = "Retrieve counters for active in-memory reactions, burst aggregation and statistics buckets",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<?> getReactionMetrics() {
+        try {
+            Map<String, Object> metrics = new HashMap<>();
+            metrics.put("active", reactionStore.getMetrics());
+            metrics.put("bursts", reactionBurstAggregator.getMetrics());
+            metrics.put("statistics", reactionStatistics.getMetrics());
+            return ResponseEntity.ok(metrics);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/rooms")
+    @Operation(
+            summary = "Get room metrics",
+            description = "Retrieve room snapshot cache and active participant count counters",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<?> getRoomMetrics() {
+        try {
+            Map<String, Object> metrics = new HashMap<>();
+            metrics.put("cache", roomCache.getMetrics());
+            metrics.put("participantCounts", participantCounter.getMetrics());
+            return ResponseEntity.ok(metrics);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+}
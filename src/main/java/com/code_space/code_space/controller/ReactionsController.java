@@ -1,13 +1,17 @@
 package com.code_space.code_space.controller;
 
 import com.code_space.code_space.dto.*;
+import com.code_space.code_space.service.RateLimitExceededException;
 import com.code_space.code_space.service.ReactionsService;
+import com.code_space.code_space.service.RoomRateLimiter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -25,6 +29,9 @@ public class ReactionsController {
     @Autowired
     private ReactionsService reactionsService;
 
+    @Autowired
+    private RoomRateLimiter rateLimiter;
+
     @GetMapping
     @Operation(
             summary = "Get active reactions",
@@ -58,8 +65,13 @@ public class ReactionsController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String userEmail = authentication.getName();
 
+            rateLimiter.acquire(RoomRateLimiter.Scope.REACTION, roomId, userEmail);
             ReactionResponse reaction = reactionsService.sendReaction(roomId, userEmail, request);
             return ResponseEntity.ok(reaction);
+        } catch (RateLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new MessageResponse("Error: " + e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(new MessageResponse("Error: " + e.getMessage()));
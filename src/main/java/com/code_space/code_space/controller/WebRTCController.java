@@ -240,6 +240,21 @@ public class WebRTCController {
         }
     }
 
+    @GetMapping("/metrics")
+    @Operation(
+            summary = "Get signaling metrics",
+            description = "Retrieve signaling fan-out, outbound queue, dispatch and notification counters",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<?> getSignalingMetrics() {
+        try {
+            return ResponseEntity.ok(signalingService.getFanoutMetrics());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/screen-shares/{roomId}/{streamId}")
     @Operation(
             summary = "Update screen share information",
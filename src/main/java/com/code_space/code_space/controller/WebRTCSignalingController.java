@@ -37,6 +37,7 @@ public class WebRTCSignalingController {
         try {
             // Set room ID and participant ID from context
             message.setRoomId(roomId);
+            message.setSessionId(headerAccessor.getSessionId());
             if (message.getFromParticipantId() == null && principal != null) {
                 message.setFromParticipantId(principal.getName());
             }
@@ -108,6 +109,22 @@ public class WebRTCSignalingController {
             Principal principal
     ) {
         try {
+            if (Boolean.TRUE.equals(iceCandidateData.get("batch"))) {
+                // A null candidate is the browser's end-of-candidates marker
+                Object candidate = iceCandidateData.get("candidate");
+                boolean endOfCandidates = candidate == null
+                        || Boolean.TRUE.equals(iceCandidateData.get("endOfCandidates"));
+
+                signalingService.handleBatchedIceCandidate(
+                        roomId,
+                        principal != null ? principal.getName() : "anonymous",
+                        (String) iceCandidateData.get("toParticipantId"),
+                        candidate,
+                        endOfCandidates
+                );
+                return;
+            }
+
             WebRTCSignalMessage message = new WebRTCSignalMessage(
                     "ice-candidate",
                     roomId,
@@ -129,6 +146,7 @@ public class WebRTCSignalingController {
     public void joinRoom(
             @DestinationVariable String roomId,
             @Payload Map<String, Object> joinData,
+            SimpMessageHeaderAccessor headerAccessor,
             Principal principal
     ) {
         try {
@@ -139,6 +157,7 @@ public class WebRTCSignalingController {
                     null,
                     joinData
             );
+            message.setSessionId(headerAccessor.getSessionId());
 
             signalingService.handleSignalingMessage(message);
             logger.info("Participant {} joined room {}", principal.getName(), roomId);
@@ -148,6 +167,19 @@ public class WebRTCSignalingController {
         }
     }
 
+    // Presence heartbeat
+    @MessageMapping("/webrtc/heartbeat/{roomId}")
+    public void heartbeat(
+            @DestinationVariable String roomId,
+            Principal principal
+    ) {
+        try {
+            signalingService.recordHeartbeat(roomId, principal != null ? principal.getName() : "anonymous");
+        } catch (Exception e) {
+            logger.error("Error handling heartbeat in room {}: {}", roomId, e.getMessage(), e);
+        }
+    }
+
     // Leave Room
     @MessageMapping("/webrtc/leave/{roomId}")
     public void leaveRoom(
@@ -0,0 +1,43 @@
+package com.code_space.code_space.dto;
+
+import java.util.List;
+
+public class ChatChangesResponse {
+    private List<ChatMessageResponse> messages; // sent or edited, current state, in change order
+    private List<Long> deletedMessageIds;
+    private long latestSeq; // pass as "since" on the next call
+    private boolean hasMore; // more changes are waiting after latestSeq
+    private boolean resyncRequired; // since is past the feed's history; reload the chat, then continue from latestSeq
+
+    // Constructors
+    public ChatChangesResponse() {}
+
+    public ChatChangesResponse(List<ChatMessageResponse> messages, List<Long> deletedMessageIds, long latestSeq, boolean hasMore) {
+        this.messages = messages;
+        this.deletedMessageIds = deletedMessageIds;
+        this.latestSeq = latestSeq;
+        this.hasMore = hasMore;
+    }
+
+    public static ChatChangesResponse resyncRequired(long latestSeq) {
+        ChatChangesResponse response = new ChatChangesResponse(List.of(), List.of(), latestSeq, false);
+        response.setResyncRequired(true);
+        return response;
+    }
+
+    // Getters and Setters
+    public List<ChatMessageResponse> getMessages() { return messages; }
+    public void setMessages(List<ChatMessageResponse> messages) { this.messages = messages; }
+
+    public List<Long> getDeletedMessageIds() { return deletedMessageIds; }
+    public void setDeletedMessageIds(List<Long> deletedMessageIds) { this.deletedMessageIds = deletedMessageIds; }
+
+    public long getLatestSeq() { return latestSeq; }
+    public void setLatestSeq(long latestSeq) { this.latestSeq = latestSeq; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    public boolean isResyncRequired() { return resyncRequired; }
+    public void setResyncRequired(boolean resyncRequired) { this.resyncRequired = resyncRequired; }
+}
@@ -0,0 +1,33 @@
+package com.code_space.code_space.dto;
+
+import java.util.List;
+
+public class ChatHistoryResponse {
+    private List<ChatMessageResponse> messages; // oldest first
+    private String prevCursor; // pass as "before" to load older messages
+    private String nextCursor; // pass as "after" to load newer messages
+    private boolean hasMore; // more messages exist in the requested direction
+
+    // Constructors
+    public ChatHistoryResponse() {}
+
+    public ChatHistoryResponse(List<ChatMessageResponse> messages, String prevCursor, String nextCursor, boolean hasMore) {
+        this.messages = messages;
+        this.prevCursor = prevCursor;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<ChatMessageResponse> getMessages() { return messages; }
+    public void setMessages(List<ChatMessageResponse> messages) { this.messages = messages; }
+
+    public String getPrevCursor() { return prevCursor; }
+    public void setPrevCursor(String prevCursor) { this.prevCursor = prevCursor; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
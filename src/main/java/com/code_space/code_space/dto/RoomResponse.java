@@ -26,6 +26,8 @@ public class RoomResponse {
     private Boolean participantsCanUnmute;
     private Boolean participantsCanShareScreen;
     private Integer maxParticipants;
+    private Integer reactionBurstThreshold;
+    private Integer reactionBurstWindowMs;
 
     // Scheduling
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
@@ -93,6 +95,8 @@ public class RoomResponse {
         this.participantsCanUnmute = room.getParticipantsCanUnmute();
         this.participantsCanShareScreen = room.getParticipantsCanShareScreen();
         this.maxParticipants = room.getMaxParticipants();
+        this.reactionBurstThreshold = room.getReactionBurstThreshold();
+        this.reactionBurstWindowMs = room.getReactionBurstWindowMs();
 
         this.scheduledStartTime = room.getScheduledStartTime();
         this.scheduledEndTime = room.getScheduledEndTime();
@@ -158,6 +162,12 @@ public class RoomResponse {
     public Integer getMaxParticipants() { return maxParticipants; }
     public void setMaxParticipants(Integer maxParticipants) { this.maxParticipants = maxParticipants; }
 
+    public Integer getReactionBurstThreshold() { return reactionBurstThreshold; }
+    public void setReactionBurstThreshold(Integer reactionBurstThreshold) { this.reactionBurstThreshold = reactionBurstThreshold; }
+
+    public Integer getReactionBurstWindowMs() { return reactionBurstWindowMs; }
+    public void setReactionBurstWindowMs(Integer reactionBurstWindowMs) { this.reactionBurstWindowMs = reactionBurstWindowMs; }
+
     public LocalDateTime getScheduledStartTime() { return scheduledStartTime; }
     public void setScheduledStartTime(LocalDateTime scheduledStartTime) { this.scheduledStartTime = scheduledStartTime; }
 
@@ -27,6 +27,15 @@ public class UpdateRoomRequest {
     @Max(1000)
     private Integer maxParticipants;
 
+    // Participants at which reactions are broadcast as bursts, and the burst window
+    @Min(0)
+    @Max(1000)
+    private Integer reactionBurstThreshold;
+
+    @Min(50)
+    @Max(5000)
+    private Integer reactionBurstWindowMs;
+
     // Scheduling Updates
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime scheduledStartTime;
@@ -70,6 +79,12 @@ public class UpdateRoomRequest {
     public Integer getMaxParticipants() { return maxParticipants; }
     public void setMaxParticipants(Integer maxParticipants) { this.maxParticipants = maxParticipants; }
 
+    public Integer getReactionBurstThreshold() { return reactionBurstThreshold; }
+    public void setReactionBurstThreshold(Integer reactionBurstThreshold) { this.reactionBurstThreshold = reactionBurstThreshold; }
+
+    public Integer getReactionBurstWindowMs() { return reactionBurstWindowMs; }
+    public void setReactionBurstWindowMs(Integer reactionBurstWindowMs) { this.reactionBurstWindowMs = reactionBurstWindowMs; }
+
     public LocalDateTime getScheduledStartTime() { return scheduledStartTime; }
     public void setScheduledStartTime(LocalDateTime scheduledStartTime) { this.scheduledStartTime = scheduledStartTime; }
 
@@ -1,6 +1,7 @@
 package com.code_space.code_space.dto.webrtc;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class WebRTCSignalMessage {
@@ -11,6 +12,9 @@ public class WebRTCSignalMessage {
     private Object data;
     private Long timestamp;
 
+    @JsonIgnore
+    private String sessionId; // STOMP session the frame arrived on; set by the server, never serialized
+
     @JsonCreator
     public WebRTCSignalMessage(
             @JsonProperty("type") String type,
@@ -45,4 +49,9 @@ public class WebRTCSignalMessage {
 
     public Long getTimestamp() { return timestamp; }
     public void setTimestamp(Long timestamp) { this.timestamp = timestamp; }
+
+    @JsonIgnore
+    public String getSessionId() { return sessionId; }
+    @JsonIgnore
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.code_space.code_space.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A chat message moved out of {@code chat_messages} by the retention job once its room
+ * went cold. Rows are written in bulk by SQL; the entity only defines the table.
+ */
+@Entity
+@Table(name = "chat_messages_archive", indexes = {
+        @Index(name = "idx_chat_messages_archive_room", columnList = "room_id, sent_at")
+})
+public class ArchivedChatMessage {
+    @Id
+    private Long id; // the original message id
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "guest_name")
+    private String guestName;
+
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    private MessageType type;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+    @Column(name = "edited_at")
+    private LocalDateTime editedAt;
+
+    @Column(name = "is_edited")
+    private Boolean isEdited;
+
+    @Column(name = "is_deleted")
+    private Boolean isDeleted;
+
+    @Column(name = "reply_to_message_id")
+    private Long replyToMessageId;
+
+    @Column(name = "attachment_url")
+    private String attachmentUrl;
+
+    @Column(name = "attachment_type")
+    private String attachmentType;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Constructors
+    public ArchivedChatMessage() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public Long getRoomId() { return roomId; }
+    public Long getUserId() { return userId; }
+    public String getGuestName() { return guestName; }
+    public String getMessage() { return message; }
+    public MessageType getType() { return type; }
+    public LocalDateTime getSentAt() { return sentAt; }
+    public LocalDateTime getEditedAt() { return editedAt; }
+    public Boolean getIsEdited() { return isEdited; }
+    public Boolean getIsDeleted() { return isDeleted; }
+    public Long getReplyToMessageId() { return replyToMessageId; }
+    public String getAttachmentUrl() { return attachmentUrl; }
+    public String getAttachmentType() { return attachmentType; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+}
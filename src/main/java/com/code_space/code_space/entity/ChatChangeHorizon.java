@@ -0,0 +1,26 @@
+package com.code_space.code_space.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * The newest change-feed position of a room whose tombstone has been pruned. A client
+ * asking for changes since an older position may have missed a removal and has to reload
+ * the chat. Rows are upserted by ChatChangeLog; the entity only defines the table.
+ */
+@Entity
+@Table(name = "chat_change_horizons")
+public class ChatChangeHorizon {
+    @Id
+    @Column(name = "room_id")
+    private Long roomId;
+
+    @Column(name = "pruned_through_seq", nullable = false)
+    private Long prunedThroughSeq;
+
+    // Constructors
+    public ChatChangeHorizon() {}
+
+    // Getters and Setters
+    public Long getRoomId() { return roomId; }
+    public Long getPrunedThroughSeq() { return prunedThroughSeq; }
+}
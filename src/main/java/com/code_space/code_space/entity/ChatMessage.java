@@ -6,8 +6,19 @@ import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+// Everything ChatMessageResponse reads: the sender and the replied-to message with its sender
+@NamedEntityGraph(name = ChatMessage.WITH_SENDER, attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode(value = "replyToMessage", subgraph = "reply")
+}, subgraphs = @NamedSubgraph(name = "reply", attributeNodes = @NamedAttributeNode("user")))
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_messages_room_history", columnList = "room_id, is_deleted, sent_at, id"),
+        @Index(name = "idx_chat_messages_reply_to", columnList = "reply_to_message_id"),
+        @Index(name = "idx_chat_messages_room_changes", columnList = "room_id, change_seq")
+})
 public class ChatMessage {
+    public static final String WITH_SENDER = "ChatMessage.withSender";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -54,6 +65,10 @@ public class ChatMessage {
     @Column(name = "attachment_type")
     private String attachmentType;
 
+    // Position in the chat change feed; assigned in SQL by ChatChangeLog and the ingest pipeline
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
     // Constructors
     public ChatMessage() {
         this.sentAt = LocalDateTime.now();
@@ -113,6 +128,8 @@ public class ChatMessage {
     public String getAttachmentType() { return attachmentType; }
     public void setAttachmentType(String attachmentType) { this.attachmentType = attachmentType; }
 
+    public Long getChangeSeq() { return changeSeq; }
+
     // Utility methods
     public boolean isSystemMessage() {
         return type == MessageType.SYSTEM;
@@ -0,0 +1,43 @@
+package com.code_space.code_space.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A chat message removed outright by the retention job, kept so the change feed can report
+ * the removal. Rows are inserted in bulk by ChatRetentionJob and pruned by ChatChangeLog;
+ * the entity only defines the table and the {@code chat_change_seq} sequence that numbers
+ * every change in the feed.
+ */
+@Entity
+@Table(name = "chat_message_tombstones", indexes = {
+        @Index(name = "idx_chat_tombstones_room_seq", columnList = "room_id, change_seq"),
+        @Index(name = "idx_chat_tombstones_deleted_at", columnList = "deleted_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_chat_tombstones_message", columnNames = {"message_id"})
+})
+public class ChatMessageTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chat_change_seq")
+    @SequenceGenerator(name = "chat_change_seq", sequenceName = "chat_change_seq", allocationSize = 1)
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(name = "message_id", nullable = false)
+    private Long messageId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    // Constructors
+    public ChatMessageTombstone() {}
+
+    // Getters and Setters
+    public Long getChangeSeq() { return changeSeq; }
+    public Long getMessageId() { return messageId; }
+    public Long getRoomId() { return roomId; }
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+}
@@ -0,0 +1,46 @@
+package com.code_space.code_space.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Number of reactions of one type sent in a room during one minute or one hour.
+ * Rows are upserted in bulk by ReactionStatistics; the entity only defines the table.
+ */
+@Entity
+@Table(name = "reaction_stat_buckets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_reaction_stat_buckets_bucket",
+                columnNames = {"room_id", "resolution", "bucket_start", "reaction_type"})
+})
+public class ReactionStatBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "resolution", nullable = false, length = 10)
+    private String resolution; // MINUTE or HOUR
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reaction_type", nullable = false)
+    private ReactionType reactionType;
+
+    @Column(name = "count", nullable = false)
+    private Long count;
+
+    // Constructors
+    public ReactionStatBucket() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public Long getRoomId() { return roomId; }
+    public String getResolution() { return resolution; }
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public ReactionType getReactionType() { return reactionType; }
+    public Long getCount() { return count; }
+}
@@ -64,6 +64,13 @@ public class Room {
     @Column(name = "max_participants")
     private Integer maxParticipants = 100;
 
+    // Reaction burst aggregation; null falls back to the app.reactions.burst defaults
+    @Column(name = "reaction_burst_threshold")
+    private Integer reactionBurstThreshold;
+
+    @Column(name = "reaction_burst_window_ms")
+    private Integer reactionBurstWindowMs;
+
     // Scheduling
     @Column(name = "scheduled_start_time")
     private LocalDateTime scheduledStartTime;
@@ -132,12 +139,17 @@ public class Room {
     @Column(name = "peak_participants")
     private Integer peakParticipants = 0;
 
-    @Column(name = "total_messages_sent")
+    // Both totals are maintained by RoomCounters with relative updates; never written from the entity
+    @Column(name = "total_messages_sent", updatable = false)
     private Long totalMessagesSent = 0L;
 
-    @Column(name = "total_reactions_sent")
+    @Column(name = "total_reactions_sent", updatable = false)
     private Long totalReactionsSent = 0L;
 
+    // Participants currently JOINED or WAITING; maintained by ActiveParticipantCounter, never written from the entity
+    @Column(name = "active_participant_count", updatable = false)
+    private Integer activeParticipantCount = 0;
+
     // WebRTC Quality Tracking
     @Column(name = "average_connection_quality")
     private String averageConnectionQuality; // JSON string with quality metrics
@@ -214,6 +226,12 @@ public class Room {
     public Integer getMaxParticipants() { return maxParticipants; }
     public void setMaxParticipants(Integer maxParticipants) { this.maxParticipants = maxParticipants; }
 
+    public Integer getReactionBurstThreshold() { return reactionBurstThreshold; }
+    public void setReactionBurstThreshold(Integer reactionBurstThreshold) { this.reactionBurstThreshold = reactionBurstThreshold; }
+
+    public Integer getReactionBurstWindowMs() { return reactionBurstWindowMs; }
+    public void setReactionBurstWindowMs(Integer reactionBurstWindowMs) { this.reactionBurstWindowMs = reactionBurstWindowMs; }
+
     public LocalDateTime getScheduledStartTime() { return scheduledStartTime; }
     public void setScheduledStartTime(LocalDateTime scheduledStartTime) { this.scheduledStartTime = scheduledStartTime; }
 
@@ -312,7 +330,14 @@ public class Room {
     }
 
     public int getParticipantCount() {
-        return participants != null ? participants.size() : 0;
+        return activeParticipantCount != null ? activeParticipantCount : 0;
+    }
+
+    /**
+     * Mirrors a relative update already applied to the row, so this instance reports it too.
+     */
+    public void adjustParticipantCount(int delta) {
+        this.activeParticipantCount = Math.max(getParticipantCount() + delta, 0);
     }
 
     public boolean isFull() {
@@ -0,0 +1,61 @@
+package com.code_space.code_space.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A participant's membership in a room's signaling session, shared by all nodes
+ * when signaling runs in clustered mode.
+ */
+@Entity
+@Table(name = "signaling_memberships", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"room_id", "participant_id"})
+}, indexes = {
+        @Index(name = "idx_signaling_memberships_participant", columnList = "participant_id"),
+        @Index(name = "idx_signaling_memberships_node", columnList = "node_id")
+})
+public class SignalingMembership {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_id", nullable = false)
+    private String roomId;
+
+    @Column(name = "participant_id", nullable = false)
+    private String participantId;
+
+    @Column(name = "node_id", nullable = false)
+    private String nodeId; // Node holding the participant's WebSocket connection
+
+    @Column(name = "joined_at", nullable = false)
+    private LocalDateTime joinedAt;
+
+    // Constructors
+    public SignalingMembership() {
+        this.joinedAt = LocalDateTime.now();
+    }
+
+    public SignalingMembership(String roomId, String participantId, String nodeId) {
+        this();
+        this.roomId = roomId;
+        this.participantId = participantId;
+        this.nodeId = nodeId;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getRoomId() { return roomId; }
+    public void setRoomId(String roomId) { this.roomId = roomId; }
+
+    public String getParticipantId() { return participantId; }
+    public void setParticipantId(String participantId) { this.participantId = participantId; }
+
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+
+    public LocalDateTime getJoinedAt() { return joinedAt; }
+    public void setJoinedAt(LocalDateTime joinedAt) { this.joinedAt = joinedAt; }
+}
@@ -0,0 +1,33 @@
+package com.code_space.code_space.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A node serving signaling connections in clustered mode, kept alive by its heartbeat.
+ * Memberships held by a node whose heartbeat has lapsed are swept by the other nodes.
+ */
+@Entity
+@Table(name = "signaling_nodes")
+public class SignalingNode {
+    @Id
+    @Column(name = "node_id")
+    private String nodeId;
+
+    @Column(name = "last_heartbeat_at", nullable = false)
+    private LocalDateTime lastHeartbeatAt;
+
+    // Constructors
+    public SignalingNode() {}
+
+    public SignalingNode(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    // Getters and Setters
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+
+    public LocalDateTime getLastHeartbeatAt() { return lastHeartbeatAt; }
+    public void setLastHeartbeatAt(LocalDateTime lastHeartbeatAt) { this.lastHeartbeatAt = lastHeartbeatAt; }
+}
@@ -3,23 +3,67 @@ package com.code_space.code_space.repository;
 import com.code_space.code_space.entity.ChatMessage;
 import com.code_space.code_space.entity.Room;
 import com.code_space.code_space.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 
+    // Read paths that are mapped to ChatMessageResponse load the WITH_SENDER graph, so a page
+    // costs one query whatever its size instead of one more per sender and reply
+
     // Find messages by room with pagination
+    @EntityGraph(ChatMessage.WITH_SENDER)
     Page<ChatMessage> findByRoomAndIsDeletedFalseOrderBySentAtAsc(Room room, Pageable pageable);
 
+    // Keyset pages over (sentAt, id), served by idx_chat_messages_room_history
+    @EntityGraph(ChatMessage.WITH_SENDER)
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.room = :room AND cm.isDeleted = false " +
+            "ORDER BY cm.sentAt DESC, cm.id DESC")
+    List<ChatMessage> findLatestPage(@Param("room") Room room, Pageable pageable);
+
+    @EntityGraph(ChatMessage.WITH_SENDER)
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.room = :room AND cm.isDeleted = false AND " +
+            "(cm.sentAt, cm.id) < (:sentAt, :id) ORDER BY cm.sentAt DESC, cm.id DESC")
+    List<ChatMessage> findPageBefore(@Param("room") Room room,
+                                     @Param("sentAt") LocalDateTime sentAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+
+    @EntityGraph(ChatMessage.WITH_SENDER)
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.room = :room AND cm.isDeleted = false AND " +
+            "(cm.sentAt, cm.id) > (:sentAt, :id) ORDER BY cm.sentAt ASC, cm.id ASC")
+    List<ChatMessage> findPageAfter(@Param("room") Room room,
+                                    @Param("sentAt") LocalDateTime sentAt,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+
+    // Change feed: every message sent, edited or deleted after the given sequence number
+    @EntityGraph(ChatMessage.WITH_SENDER)
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.room.id = :roomId AND cm.changeSeq > :since " +
+            "ORDER BY cm.changeSeq ASC")
+    List<ChatMessage> findChangesSince(@Param("roomId") Long roomId, @Param("since") Long since, Pageable pageable);
+
+    // Search hits by id, loaded with the same graph as the pages above
+    @EntityGraph(ChatMessage.WITH_SENDER)
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.id IN :ids AND cm.isDeleted = false")
+    List<ChatMessage> findVisibleByIdIn(@Param("ids") Collection<Long> ids);
+
     // Find recent messages by room
+    @EntityGraph(ChatMessage.WITH_SENDER)
     List<ChatMessage> findTop50ByRoomAndIsDeletedFalseOrderBySentAtDesc(Room room);
 
     // Find messages by user in a room
@@ -42,6 +86,19 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     List<ChatMessage> searchMessagesInRoom(@Param("room") Room room,
                                            @Param("searchTerm") String searchTerm);
 
+    // Id and text of every visible message, for building the search index
+    @Query("SELECT cm.id, cm.message FROM ChatMessage cm WHERE cm.room.id = :roomId AND cm.isDeleted = false")
+    List<Object[]> findSearchableByRoomId(@Param("roomId") Long roomId);
+
+    // Whole transcript through a server-side cursor; consume inside a read-only transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT cm FROM ChatMessage cm LEFT JOIN FETCH cm.user WHERE cm.room.id = :roomId AND " +
+            "cm.isDeleted = false ORDER BY cm.sentAt ASC, cm.id ASC")
+    Stream<ChatMessage> streamTranscript(@Param("roomId") Long roomId);
+
     // Delete old messages (for cleanup)
     void deleteByRoomAndSentAtBefore(Room room, LocalDateTime before);
 
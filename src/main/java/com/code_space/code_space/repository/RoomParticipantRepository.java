@@ -32,6 +32,10 @@ public interface RoomParticipantRepository extends JpaRepository<RoomParticipant
     @Query("SELECT COUNT(rp) FROM RoomParticipant rp WHERE rp.room = :room AND rp.status IN ('JOINED', 'WAITING')")
     Long countActiveParticipantsByRoom(@Param("room") Room room);
 
+    // Roster projection for notification fan-out: participant id, user id, role, status
+    @Query("SELECT rp.id, u.id, rp.role, rp.status FROM RoomParticipant rp LEFT JOIN rp.user u WHERE rp.room.id = :roomId")
+    List<Object[]> findRosterByRoomId(@Param("roomId") Long roomId);
+
     boolean existsByRoomAndUser(Room room, User user);
 
     boolean existsByRoomAndGuestEmail(Room room, String guestEmail);
@@ -5,10 +5,13 @@ import com.code_space.code_space.entity.RoomStatus;
 import com.code_space.code_space.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,6 +24,16 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
 
     Optional<Room> findByInvitationLink(String invitationLink);
 
+    // Snapshot loads for RoomCache, with the host in the same query
+    @EntityGraph(attributePaths = "host")
+    Optional<Room> findWithHostById(Long id);
+
+    @EntityGraph(attributePaths = "host")
+    Optional<Room> findWithHostByRoomCode(String roomCode);
+
+    @EntityGraph(attributePaths = "host")
+    Optional<Room> findWithHostByInvitationLink(String invitationLink);
+
     List<Room> findByHostOrderByCreatedAtDesc(User host);
 
     Page<Room> findByHostOrderByCreatedAtDesc(User host, Pageable pageable);
@@ -47,4 +60,32 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
 
     @Query("SELECT COUNT(r) FROM Room r WHERE r.host = :host AND r.createdAt >= :startDate")
     Long countByHostAndCreatedAtAfter(@Param("host") User host, @Param("startDate") LocalDateTime startDate);
-}
\ No newline at end of file
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Room r SET r.totalMessagesSent = COALESCE(r.totalMessagesSent, 0) + :delta WHERE r.id = :roomId")
+    int addMessagesSent(@Param("roomId") Long roomId, @Param("delta") long delta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Room r SET r.totalReactionsSent = COALESCE(r.totalReactionsSent, 0) + :delta WHERE r.id = :roomId")
+    int addReactionsSent(@Param("roomId") Long roomId, @Param("delta") long delta);
+
+    // Conditional so the capacity check and the increment are one atomic step
+    @Modifying
+    @Query("UPDATE Room r SET r.activeParticipantCount = COALESCE(r.activeParticipantCount, 0) + 1 " +
+           "WHERE r.id = :roomId AND (r.maxParticipants IS NULL OR COALESCE(r.activeParticipantCount, 0) < r.maxParticipants)")
+    int claimParticipantSeat(@Param("roomId") Long roomId);
+
+    @Modifying
+    @Query("UPDATE Room r SET r.activeParticipantCount = COALESCE(r.activeParticipantCount, 0) + :delta WHERE r.id = :roomId")
+    int addActiveParticipants(@Param("roomId") Long roomId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("UPDATE Room r SET r.activeParticipantCount = CASE WHEN COALESCE(r.activeParticipantCount, 0) > :count " +
+           "THEN r.activeParticipantCount - :count ELSE 0 END WHERE r.id = :roomId")
+    int removeActiveParticipants(@Param("roomId") Long roomId, @Param("count") int count);
+
+    @Query("SELECT COALESCE(r.activeParticipantCount, 0) FROM Room r WHERE r.id = :roomId")
+    Optional<Integer> findParticipantCountById(@Param("roomId") Long roomId);
+}
@@ -0,0 +1,48 @@
+package com.code_space.code_space.repository;
+
+import com.code_space.code_space.entity.SignalingMembership;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SignalingMembershipRepository extends JpaRepository<SignalingMembership, Long> {
+
+    Optional<SignalingMembership> findByRoomIdAndParticipantId(String roomId, String participantId);
+
+    Optional<SignalingMembership> findFirstByParticipantIdOrderByJoinedAtDesc(String participantId);
+
+    List<SignalingMembership> findByRoomId(String roomId);
+
+    long countByRoomId(String roomId);
+
+    @Query("SELECT sm.participantId FROM SignalingMembership sm WHERE sm.roomId = :roomId")
+    List<String> findParticipantIdsByRoomId(@Param("roomId") String roomId);
+
+    @Modifying
+    @Query("DELETE FROM SignalingMembership sm WHERE sm.roomId = :roomId AND sm.participantId = :participantId")
+    int deleteMembership(@Param("roomId") String roomId, @Param("participantId") String participantId);
+
+    @Modifying
+    @Query("DELETE FROM SignalingMembership sm WHERE sm.roomId = :roomId")
+    int deleteByRoom(@Param("roomId") String roomId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SignalingMembership sm WHERE sm.nodeId = :nodeId")
+    int deleteByNode(@Param("nodeId") String nodeId);
+
+    // Rows of nodes without a live heartbeat; recent rows are spared so a node that just started is not swept
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SignalingMembership sm WHERE sm.joinedAt < :cutoff AND sm.nodeId NOT IN " +
+           "(SELECT n.nodeId FROM SignalingNode n WHERE n.lastHeartbeatAt >= :cutoff)")
+    int deleteOrphaned(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,20 @@
+package com.code_space.code_space.repository;
+
+import com.code_space.code_space.entity.SignalingNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SignalingNodeRepository extends JpaRepository<SignalingNode, String> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SignalingNode n WHERE n.lastHeartbeatAt < :cutoff")
+    int deleteExpired(@Param("cutoff") LocalDateTime cutoff);
+}
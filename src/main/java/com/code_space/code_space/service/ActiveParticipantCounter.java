@@ -0,0 +1,144 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.Room;
+import com.code_space.code_space.repository.RoomRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps {@code rooms.active_participant_count} (participants JOINED or WAITING) in step
+ * with the participant rows, so counts and capacity checks never load the collection.
+ *
+ * Joins claim a seat with one conditional UPDATE that only succeeds below
+ * {@code max_participants}; concurrent joins queue on the room row and cannot overshoot.
+ * Leaves release seats the same way. Every change runs in the transaction that changes the
+ * participant, so the two commit or roll back together. A scheduled reconcile recounts any
+ * room whose column disagrees with its participant rows, holding the row lock while it does.
+ */
+@Component
+public class ActiveParticipantCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveParticipantCounter.class);
+
+    private static final String ACTIVE_COUNT_SQL =
+            "SELECT COUNT(*) FROM room_participants p WHERE p.room_id = r.id AND p.status IN ('JOINED', 'WAITING')";
+
+    // Finished rooms are only checked while they still report participants
+    private static final String DRIFT_SQL =
+            "SELECT r.id FROM rooms r WHERE (r.status NOT IN ('ENDED', 'CANCELLED') " +
+            "OR COALESCE(r.active_participant_count, 0) <> 0) " +
+            "AND COALESCE(r.active_participant_count, 0) <> (" + ACTIVE_COUNT_SQL + ")";
+
+    private static final String LOCK_SQL = "SELECT id FROM rooms WHERE id = ? FOR UPDATE";
+
+    private static final String RECOUNT_SQL =
+            "UPDATE rooms r SET active_participant_count = (" + ACTIVE_COUNT_SQL + ") WHERE r.id = ?";
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicLong seatsClaimed = new AtomicLong();
+    private final AtomicLong joinsRejected = new AtomicLong();
+    private final AtomicLong seatsReleased = new AtomicLong();
+    private final AtomicLong reconcileRuns = new AtomicLong();
+    private final AtomicLong roomsReconciled = new AtomicLong();
+
+    public int get(Long roomId) {
+        return roomRepository.findParticipantCountById(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found"));
+    }
+
+    /**
+     * Takes a seat for a new active participant, or fails if the room is at capacity.
+     */
+    public void claimSeat(Room room) {
+        if (roomRepository.claimParticipantSeat(room.getId()) == 0) {
+            joinsRejected.incrementAndGet();
+            throw new RuntimeException("Room is full");
+        }
+        seatsClaimed.incrementAndGet();
+        mirror(room, 1);
+    }
+
+    /**
+     * Takes a seat regardless of capacity; the host always gets into their own room.
+     */
+    public void addHost(Room room) {
+        roomRepository.addActiveParticipants(room.getId(), 1);
+        seatsClaimed.incrementAndGet();
+        mirror(room, 1);
+    }
+
+    public void release(Room room, int count) {
+        if (count <= 0) {
+            return;
+        }
+        roomRepository.removeActiveParticipants(room.getId(), count);
+        seatsReleased.addAndGet(count);
+        mirror(room, -count);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rooms.participant-count.reconcile-interval-ms:60000}",
+            initialDelayString = "${app.rooms.participant-count.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        List<Long> drifted;
+        try {
+            drifted = jdbcTemplate.queryForList(DRIFT_SQL, Long.class);
+        } catch (Exception e) {
+            logger.error("Failed to check participant counts: {}", e.getMessage(), e);
+            return;
+        }
+        reconcileRuns.incrementAndGet();
+
+        for (Long roomId : drifted) {
+            try {
+                // The recount starts after the lock is held, so it sees every join and leave
+                // that committed before it and none can commit while it runs
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.queryForList(LOCK_SQL, Long.class, roomId);
+                    jdbcTemplate.update(RECOUNT_SQL, roomId);
+                });
+                roomsReconciled.incrementAndGet();
+            } catch (Exception e) {
+                logger.error("Failed to reconcile participant count for room {}: {}", roomId, e.getMessage(), e);
+            }
+        }
+        if (!drifted.isEmpty()) {
+            logger.warn("Reconciled participant counts for {} rooms", drifted.size());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("seatsClaimed", seatsClaimed.get());
+        metrics.put("joinsRejected", joinsRejected.get());
+        metrics.put("seatsReleased", seatsReleased.get());
+        metrics.put("reconcileRuns", reconcileRuns.get());
+        metrics.put("roomsReconciled", roomsReconciled.get());
+        return metrics;
+    }
+
+    // A room still behind an uninitialised proxy will read the updated row when it loads
+    private void mirror(Room room, int delta) {
+        if (Hibernate.isInitialized(room)) {
+            room.adjustParticipantCount(delta);
+        }
+    }
+}
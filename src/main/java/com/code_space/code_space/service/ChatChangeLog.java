@@ -0,0 +1,154 @@
+package com.code_space.code_space.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stamps chat messages with their position in the change feed.
+ *
+ * Every send, edit and delete gives the message a fresh value from the
+ * {@code chat_change_seq} sequence, so a client that has seen everything up to some
+ * sequence number can fetch exactly what changed since. The stamp is taken just before
+ * the transaction commits to keep the gap between numbering and visibility short.
+ *
+ * Numbering takes a per-room advisory lock that is held until the transaction ends, so
+ * within a room sequence numbers commit in the order they were drawn: a reader can never
+ * see change n+1 while change n is still in flight and then skip it. The sequence itself
+ * is shared by all rooms, so a room's numbers have gaps; clients only ever compare them.
+ *
+ * Rows removed outright by retention leave a tombstone in {@code chat_message_tombstones}
+ * with their own sequence number, so the feed reports them as deletions too. Tombstones
+ * older than {@code tombstone-retention-days} are pruned; the newest pruned position of
+ * each room is kept as its horizon, and a client asking for changes since an older
+ * position is told to reload the chat instead of silently missing those removals.
+ */
+@Component
+public class ChatChangeLog {
+
+    public static final String NEXT_SEQ = "nextval('chat_change_seq')";
+
+    public static final String TOMBSTONES = "chat_message_tombstones";
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatChangeLog.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${chat.changes.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    private final AtomicLong tombstonesPruned = new AtomicLong();
+
+    public void recordChange(Long roomId, Long messageId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The lock must be held through the commit of the stamp
+            transactionTemplate.executeWithoutResult(status -> stamp(roomId, messageId));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                stamp(roomId, messageId);
+            }
+        });
+    }
+
+    public long getLatestSeq(Long roomId) {
+        Long latest = jdbcTemplate.queryForObject(
+                "SELECT GREATEST(COALESCE((SELECT MAX(change_seq) FROM chat_messages WHERE room_id = ?), 0), " +
+                "COALESCE((SELECT MAX(change_seq) FROM " + TOMBSTONES + " WHERE room_id = ?), 0), " +
+                "COALESCE((SELECT pruned_through_seq FROM chat_change_horizons WHERE room_id = ?), 0))",
+                Long.class, roomId, roomId, roomId);
+        return latest != null ? latest : 0;
+    }
+
+    /**
+     * The newest position of the room whose tombstone has been pruned, or 0 if none has.
+     * Changes since an older position can no longer be listed completely.
+     */
+    public long getHorizon(Long roomId) {
+        List<Long> horizon = jdbcTemplate.queryForList(
+                "SELECT pruned_through_seq FROM chat_change_horizons WHERE room_id = ?", Long.class, roomId);
+        return horizon.isEmpty() ? 0 : horizon.get(0);
+    }
+
+    /**
+     * Deletes tombstones past the retention and advances the horizon of their rooms in the
+     * same transaction, so a reader never sees the tombstones gone but the horizon unchanged.
+     */
+    @Scheduled(fixedDelayString = "${chat.changes.prune-interval-ms:3600000}")
+    public void pruneTombstones() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(Duration.ofDays(tombstoneRetentionDays)));
+        try {
+            Integer pruned = transactionTemplate.execute(status -> {
+                jdbcTemplate.update(
+                        "INSERT INTO chat_change_horizons (room_id, pruned_through_seq) " +
+                        "SELECT room_id, MAX(change_seq) FROM " + TOMBSTONES + " WHERE deleted_at < ? GROUP BY room_id " +
+                        "ON CONFLICT (room_id) DO UPDATE SET pruned_through_seq = " +
+                        "GREATEST(chat_change_horizons.pruned_through_seq, EXCLUDED.pruned_through_seq)", cutoff);
+                return jdbcTemplate.update("DELETE FROM " + TOMBSTONES + " WHERE deleted_at < ?", cutoff);
+            });
+            if (pruned != null && pruned > 0) {
+                tombstonesPruned.addAndGet(pruned);
+                logger.info("Pruned {} chat tombstones deleted before {}", pruned, cutoff);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to prune chat tombstones: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("tombstonesPruned", tombstonesPruned.get());
+        return metrics;
+    }
+
+    /**
+     * Messages removed by retention after the given sequence number, in change order.
+     */
+    public List<Tombstone> findTombstonesSince(Long roomId, long since, int limit) {
+        return jdbcTemplate.query(
+                "SELECT message_id, change_seq FROM " + TOMBSTONES + " WHERE room_id = ? AND change_seq > ? " +
+                "ORDER BY change_seq ASC LIMIT ?",
+                (rs, rowNum) -> new Tombstone(rs.getLong("message_id"), rs.getLong("change_seq")),
+                roomId, since, limit);
+    }
+
+    /**
+     * Takes the change-feed locks of the given rooms for the rest of the current transaction.
+     * Must be called inside a transaction, before drawing sequence numbers for those rooms.
+     * Rooms are locked in id order so transactions touching several rooms cannot deadlock.
+     */
+    public void lockRooms(Collection<Long> roomIds) {
+        roomIds.stream().distinct().sorted().forEach(roomId ->
+                jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> { }, roomId));
+    }
+
+    private void stamp(Long roomId, Long messageId) {
+        lockRooms(List.of(roomId));
+        jdbcTemplate.update("UPDATE chat_messages SET change_seq = " + NEXT_SEQ + " WHERE id = ?", messageId);
+    }
+
+    public record Tombstone(long messageId, long changeSeq) {
+    }
+}
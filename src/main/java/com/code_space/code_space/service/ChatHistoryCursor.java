@@ -0,0 +1,40 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.ChatMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a room's chat history, ordered by (sentAt, id).
+ *
+ * Clients only see the encoded form and hand it back unchanged, so the key can change
+ * without breaking the API.
+ */
+public record ChatHistoryCursor(LocalDateTime sentAt, Long id) {
+
+    public static ChatHistoryCursor of(ChatMessage message) {
+        return new ChatHistoryCursor(message.getSentAt(), message.getId());
+    }
+
+    public String encode() {
+        String raw = sentAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChatHistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                throw new RuntimeException("Invalid history cursor");
+            }
+            return new ChatHistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RuntimeException("Invalid history cursor");
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.ChatMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group-commit writer for chat messages.
+ *
+ * Senders enqueue their message and wait. A single writer thread takes everything queued
+ * while the previous batch was committing, reserves ids for the whole batch with one
+ * sequence call, inserts the rows as one JDBC batch and commits once; then every sender in
+ * the batch is released with its id. Under load the batch grows with the commit latency
+ * instead of each sender paying for its own commit.
+ */
+@Component
+public class ChatIngestPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatIngestPipeline.class);
+
+    private static final String NEXT_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('chat_messages', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO chat_messages (id, room_id, user_id, guest_name, message, type, sent_at, " +
+            "is_edited, is_deleted, reply_to_message_id, attachment_url, attachment_type, change_seq) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " + ChatChangeLog.NEXT_SEQ + ")";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ChatChangeLog chatChangeLog;
+
+    @Value("${chat.ingest.max-batch-size:256}")
+    private int maxBatchSize;
+
+    @Value("${chat.ingest.ack-timeout-ms:5000}")
+    private long ackTimeoutMs;
+
+    private final BlockingQueue<PendingMessage> queue = new LinkedBlockingQueue<>();
+    private final Thread writer = new Thread(this::run, "chat-ingest");
+    private volatile boolean running = true;
+
+    private final AtomicLong messagesWritten = new AtomicLong();
+    private final AtomicLong batchesCommitted = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Persists the message and returns once its batch has committed, with the message's id set.
+     *
+     * If the ack does not arrive in time and the message is still queued, it is withdrawn and
+     * the send fails without being stored. Once the writer has taken it, the outcome of its
+     * batch is awaited instead, so a reported failure always means the message was not stored.
+     */
+    public ChatMessage write(ChatMessage message) {
+        PendingMessage pending = new PendingMessage(message, new CompletableFuture<>());
+        queue.add(pending);
+
+        try {
+            message.setId(awaitAck(pending));
+            return message;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (queue.remove(pending)) {
+                throw new RuntimeException("Interrupted while sending message");
+            }
+            // Already in a batch; report what that batch did
+            message.setId(pending.ack().join());
+            return message;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to send message", e.getCause());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long batches = batchesCommitted.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("messagesWritten", messagesWritten.get());
+        metrics.put("batchesCommitted", batches);
+        metrics.put("averageBatchSize", batches > 0 ? (double) messagesWritten.get() / batches : 0.0);
+        metrics.put("largestBatch", largestBatch.get());
+        metrics.put("queued", queue.size());
+        metrics.put("timedOut", timedOut.get());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+    }
+
+    private Long awaitAck(PendingMessage pending) throws InterruptedException, ExecutionException {
+        try {
+            return pending.ack().get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (queue.remove(pending)) {
+                timedOut.incrementAndGet();
+                throw new RuntimeException("Timed out waiting to send message");
+            }
+            // The writer took it before we could withdraw it; its batch decides the outcome
+            return pending.ack().get();
+        }
+    }
+
+    private void run() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                if (running) {
+                    logger.warn("Chat ingest writer interrupted while running");
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingMessage> batch) {
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> {
+                // Change sequence numbers are drawn by the inserts below
+                chatChangeLog.lockRooms(batch.stream().map(pending -> pending.message().getRoom().getId()).toList());
+                List<Long> reserved = jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, batch.size());
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows(batch, reserved), new int[]{
+                        Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                        Types.TIMESTAMP, Types.BOOLEAN, Types.BOOLEAN, Types.BIGINT, Types.VARCHAR, Types.VARCHAR});
+                return reserved;
+            });
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).ack().complete(ids.get(i));
+            }
+            messagesWritten.addAndGet(batch.size());
+            batchesCommitted.incrementAndGet();
+            largestBatch.accumulateAndGet(batch.size(), Math::max);
+        } catch (Exception e) {
+            logger.error("Failed to commit batch of {} chat messages: {}", batch.size(), e.getMessage(), e);
+            batch.forEach(pending -> pending.ack().completeExceptionally(e));
+        }
+    }
+
+    private List<Object[]> rows(List<PendingMessage> batch, List<Long> ids) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ChatMessage message = batch.get(i).message();
+            rows.add(new Object[]{
+                    ids.get(i),
+                    message.getRoom().getId(),
+                    message.getUser() != null ? message.getUser().getId() : null,
+                    message.getGuestName(),
+                    message.getMessage(),
+                    message.getType().name(),
+                    Timestamp.valueOf(message.getSentAt()),
+                    Boolean.TRUE.equals(message.getIsEdited()),
+                    Boolean.TRUE.equals(message.getIsDeleted()),
+                    message.getReplyToMessage() != null ? message.getReplyToMessage().getId() : null,
+                    message.getAttachmentUrl(),
+                    message.getAttachmentType()
+            });
+        }
+        return rows;
+    }
+
+    private record PendingMessage(ChatMessage message, CompletableFuture<Long> ack) {
+    }
+}
@@ -0,0 +1,258 @@
+package com.code_space.code_space.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retention for {@code chat_messages}.
+ *
+ * Each pass walks the table by primary-key windows of {@code batch-size} ids and handles
+ * one window per short transaction, so locks are only ever held on a small range of rows.
+ * Between windows the job sleeps long enough to stay under its duty cycle, which keeps
+ * it off the connection pool and out of the way of {@code sendMessage}.
+ *
+ * Passes: soft-deleted messages past their grace period are removed, messages of rooms
+ * that ended long ago are moved to {@code chat_messages_archive}, and
+ * {@link #purgeOlderThan} removes everything older than a cutoff on request.
+ *
+ * Every removed row leaves a tombstone in the change feed, and the recent-message and
+ * search caches of the rooms a window touched are evicted once the window commits.
+ */
+@Component
+public class ChatRetentionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatRetentionJob.class);
+
+    private static final String COLUMNS = "id, room_id, user_id, guest_name, message, type, sent_at, edited_at, " +
+            "is_edited, is_deleted, reply_to_message_id, attachment_url, attachment_type";
+
+    // Pass predicates, qualified with the alias every window query gives chat_messages
+    private static final String SOFT_DELETED = "m.is_deleted = true AND m.sent_at < ?";
+    private static final String COLD_ROOM = "m.room_id IN (SELECT r.id FROM rooms r WHERE r.status = 'ENDED' AND r.actual_end_time < ?)";
+    private static final String SENT_BEFORE = "m.sent_at < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ChatChangeLog chatChangeLog;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private ChatSearchIndex searchIndex;
+
+    @Value("${chat.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${chat.retention.max-duty-cycle:0.2}")
+    private double maxDutyCycle;
+
+    @Value("${chat.retention.soft-deleted-grace-hours:24}")
+    private long softDeletedGraceHours;
+
+    @Value("${chat.retention.archive-after-days:0}")
+    private long archiveAfterDays;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chat-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong windowsProcessed = new AtomicLong();
+    private final AtomicLong messagesDeleted = new AtomicLong();
+    private final AtomicLong messagesArchived = new AtomicLong();
+    private final AtomicLong repliesDetached = new AtomicLong();
+    private volatile String currentPass;
+    private volatile long currentWindowStart;
+    private volatile long currentMaxId;
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile long lastRunDurationMs;
+
+    /**
+     * Starts a run on the job's own thread so the shared scheduler thread is not held.
+     */
+    @Scheduled(fixedDelayString = "${chat.retention.interval-ms:3600000}",
+            initialDelayString = "${chat.retention.initial-delay-ms:300000}")
+    public void trigger() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        long start = System.currentTimeMillis();
+        lastRunStartedAt = LocalDateTime.now();
+        runs.incrementAndGet();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            sweep("compact-soft-deleted", SOFT_DELETED, now.minusHours(softDeletedGraceHours), false);
+            if (archiveAfterDays > 0) {
+                sweep("archive-cold-rooms", COLD_ROOM, now.minusDays(archiveAfterDays), true);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Chat retention run interrupted");
+        } catch (Exception e) {
+            logger.error("Chat retention run failed: {}", e.getMessage(), e);
+        } finally {
+            lastRunDurationMs = System.currentTimeMillis() - start;
+            currentPass = null;
+            running.set(false);
+        }
+    }
+
+    /**
+     * Permanently removes every message sent before the cutoff, in the same throttled batches.
+     */
+    public void purgeOlderThan(LocalDateTime cutoff) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Chat retention is already running");
+        }
+        try {
+            sweep("purge-before-cutoff", SENT_BEFORE, cutoff, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Chat retention interrupted");
+        } finally {
+            currentPass = null;
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("running", running.get());
+        metrics.put("currentPass", currentPass);
+        metrics.put("currentWindowStart", currentWindowStart);
+        metrics.put("currentMaxId", currentMaxId);
+        metrics.put("runs", runs.get());
+        metrics.put("windowsProcessed", windowsProcessed.get());
+        metrics.put("messagesDeleted", messagesDeleted.get());
+        metrics.put("messagesArchived", messagesArchived.get());
+        metrics.put("repliesDetached", repliesDetached.get());
+        metrics.put("lastRunStartedAt", lastRunStartedAt != null ? lastRunStartedAt.toString() : null);
+        metrics.put("lastRunDurationMs", lastRunDurationMs);
+        return metrics;
+    }
+
+    private void sweep(String pass, String predicate, LocalDateTime cutoff, boolean archive) throws InterruptedException {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM chat_messages");
+        if (bounds.get("min_id") == null) {
+            return;
+        }
+
+        long minId = ((Number) bounds.get("min_id")).longValue();
+        long maxId = ((Number) bounds.get("max_id")).longValue();
+        Timestamp cutoffTs = Timestamp.valueOf(cutoff);
+        currentPass = pass;
+        currentMaxId = maxId;
+        long affected = 0;
+
+        for (long low = minId; low <= maxId; low += batchSize) {
+            long windowStart = low;
+            long windowEnd = low + batchSize;
+            currentWindowStart = windowStart;
+
+            long batchStart = System.nanoTime();
+            Integer removed = transactionTemplate.execute(status ->
+                    processWindow(predicate, cutoffTs, windowStart, windowEnd, archive));
+            long batchNanos = System.nanoTime() - batchStart;
+
+            affected += removed != null ? removed : 0;
+            windowsProcessed.incrementAndGet();
+            throttle(batchNanos);
+        }
+
+        if (affected > 0) {
+            logger.info("Chat retention {} removed {} messages up to id {}", pass, affected, maxId);
+        }
+    }
+
+    private int processWindow(String predicate, Timestamp cutoff, long from, long to, boolean archive) {
+        String window = "m.id >= ? AND m.id < ? AND " + predicate;
+
+        if (archive) {
+            int archived = jdbcTemplate.update(
+                    "INSERT INTO chat_messages_archive (" + COLUMNS + ", archived_at) " +
+                    "SELECT " + COLUMNS + ", now() FROM chat_messages m WHERE " + window +
+                    " ON CONFLICT (id) DO NOTHING", from, to, cutoff);
+            messagesArchived.addAndGet(archived);
+        }
+
+        // Rooms whose cached messages or reply previews this window changes; two branches so
+        // each can use an index instead of one OR forcing a scan
+        List<Long> rooms = jdbcTemplate.queryForList(
+                "SELECT m.room_id FROM chat_messages m WHERE " + window +
+                " UNION SELECT reply.room_id FROM chat_messages reply" +
+                " JOIN chat_messages m ON reply.reply_to_message_id = m.id WHERE " + window,
+                Long.class, from, to, cutoff, from, to, cutoff);
+        if (rooms.isEmpty()) {
+            return 0;
+        }
+        chatChangeLog.lockRooms(rooms);
+
+        // Replies keep working; they just lose the link to a message that is going away
+        int detached = jdbcTemplate.update(
+                "UPDATE chat_messages SET reply_to_message_id = NULL, change_seq = " + ChatChangeLog.NEXT_SEQ +
+                " WHERE reply_to_message_id IN (SELECT m.id FROM chat_messages m WHERE " + window + ")", from, to, cutoff);
+        repliesDetached.addAndGet(detached);
+
+        jdbcTemplate.update(
+                "INSERT INTO " + ChatChangeLog.TOMBSTONES + " (message_id, room_id, change_seq, deleted_at) " +
+                "SELECT m.id, m.room_id, " + ChatChangeLog.NEXT_SEQ + ", now() FROM chat_messages m WHERE " + window +
+                " ON CONFLICT (message_id) DO NOTHING", from, to, cutoff);
+
+        int deleted = jdbcTemplate.update("DELETE FROM chat_messages m WHERE " + window, from, to, cutoff);
+        messagesDeleted.addAndGet(deleted);
+
+        // Both evict after this window's transaction commits
+        for (Long roomId : rooms) {
+            recentMessageCache.evict(roomId);
+            searchIndex.evict(roomId);
+        }
+        return deleted;
+    }
+
+    /**
+     * Sleeps so that time spent in batches stays within the configured share of wall time.
+     */
+    private void throttle(long batchNanos) throws InterruptedException {
+        long pauseNanos = (long) (batchNanos * (1 - maxDutyCycle) / maxDutyCycle);
+        long pauseMs = Math.max(1, pauseNanos / 1_000_000);
+        Thread.sleep(pauseMs);
+    }
+}
@@ -0,0 +1,218 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.repository.ChatMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Per-room chat search index.
+ *
+ * A room is indexed from the database the first time it is searched and then kept current
+ * by {@link ChatService} as messages are sent, edited and deleted (applied after commit).
+ * When the estimated size of all resident rooms exceeds the memory budget, the least
+ * recently searched rooms are evicted and rebuilt on their next search.
+ *
+ * A room is built outside the map, by one searcher while any others wait for its result,
+ * so the scan never holds a map bin that the sender's after-commit update needs. Changes
+ * committed while the build runs are recorded and replayed onto the new index before it
+ * is published; replaying one the scan already saw is harmless.
+ */
+@Component
+public class ChatSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSearchIndex.class);
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Value("${chat.search.memory-budget-mb:64}")
+    private long memoryBudgetMb;
+
+    private final Map<Long, RoomIndex> rooms = new ConcurrentHashMap<>();
+    private final Map<Long, PendingBuild> pendingBuilds = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong accessClock = new AtomicLong();
+
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Returns the ids of the room's messages matching the query, best match first.
+     */
+    public List<Long> search(Long roomId, String query, int limit) {
+        RoomIndex room = rooms.get(roomId);
+        if (room == null) {
+            room = buildOrAwait(roomId);
+        }
+        room.lastAccess = accessClock.incrementAndGet();
+
+        List<Long> result;
+        synchronized (room) {
+            result = room.index.search(query, limit);
+        }
+        enforceBudget();
+        return result;
+    }
+
+    public void onMessageSaved(Long roomId, Long messageId, String text) {
+        afterCommit(() -> apply(roomId, index -> index.put(messageId, text)));
+    }
+
+    public void onMessageDeleted(Long roomId, Long messageId) {
+        afterCommit(() -> apply(roomId, index -> index.remove(messageId)));
+    }
+
+    public void evict(Long roomId) {
+        afterCommit(() -> pendingBuilds.compute(roomId, (key, pending) -> {
+            if (pending != null) {
+                // The build may predate whatever made the room stale; serve it once, never keep it
+                pending.discarded = true;
+            }
+            RoomIndex removed = rooms.remove(roomId);
+            if (removed != null) {
+                totalBytes.addAndGet(-removed.index.getEstimatedBytes());
+            }
+            return pending;
+        }));
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("residentRooms", rooms.size());
+        metrics.put("estimatedBytes", totalBytes.get());
+        metrics.put("builds", builds.get());
+        metrics.put("evictions", evictions.get());
+        return metrics;
+    }
+
+    /**
+     * Applies a committed change to the room's index, or records it for the build in progress.
+     * Both happen under the room's pending-build entry so a change cannot fall between the two.
+     */
+    private void apply(Long roomId, ToLongFunction<InvertedIndex> change) {
+        pendingBuilds.compute(roomId, (key, pending) -> {
+            if (pending != null) {
+                pending.changes.add(change);
+            } else {
+                RoomIndex room = rooms.get(roomId);
+                if (room != null) {
+                    synchronized (room) {
+                        totalBytes.addAndGet(change.applyAsLong(room.index));
+                    }
+                }
+            }
+            return pending;
+        });
+    }
+
+    private RoomIndex buildOrAwait(Long roomId) {
+        PendingBuild pending = new PendingBuild();
+        PendingBuild running = pendingBuilds.putIfAbsent(roomId, pending);
+        if (running != null) {
+            return running.result.join();
+        }
+
+        try {
+            // Published between our miss and registering the build
+            RoomIndex published = rooms.get(roomId);
+            RoomIndex room = published != null ? published : build(roomId);
+            if (published != null) {
+                pendingBuilds.remove(roomId, pending);
+            } else {
+                publish(roomId, pending, room);
+            }
+            pending.result.complete(room);
+            return room;
+        } catch (RuntimeException e) {
+            pendingBuilds.remove(roomId, pending);
+            pending.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void publish(Long roomId, PendingBuild pending, RoomIndex room) {
+        pendingBuilds.compute(roomId, (key, current) -> {
+            for (ToLongFunction<InvertedIndex> change : pending.changes) {
+                totalBytes.addAndGet(change.applyAsLong(room.index));
+            }
+            if (pending.discarded) {
+                totalBytes.addAndGet(-room.index.getEstimatedBytes());
+            } else {
+                rooms.put(roomId, room);
+            }
+            return null;
+        });
+    }
+
+    private RoomIndex build(Long roomId) {
+        long start = System.currentTimeMillis();
+        InvertedIndex index = new InvertedIndex();
+        for (Object[] row : chatMessageRepository.findSearchableByRoomId(roomId)) {
+            index.put((Long) row[0], (String) row[1]);
+        }
+        totalBytes.addAndGet(index.getEstimatedBytes());
+        builds.incrementAndGet();
+        logger.debug("Indexed {} messages for room {} in {} ms", index.size(), roomId, System.currentTimeMillis() - start);
+        return new RoomIndex(index);
+    }
+
+    private void enforceBudget() {
+        long budget = memoryBudgetMb * 1024 * 1024;
+        while (totalBytes.get() > budget && rooms.size() > 1) {
+            Map.Entry<Long, RoomIndex> eldest = null;
+            for (Map.Entry<Long, RoomIndex> entry : rooms.entrySet()) {
+                if (eldest == null || entry.getValue().lastAccess < eldest.getValue().lastAccess) {
+                    eldest = entry;
+                }
+            }
+            if (eldest == null || !rooms.remove(eldest.getKey(), eldest.getValue())) {
+                return;
+            }
+            totalBytes.addAndGet(-eldest.getValue().index.getEstimatedBytes());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class PendingBuild {
+        private final CompletableFuture<RoomIndex> result = new CompletableFuture<>();
+        // Only touched under the room's pendingBuilds entry
+        private final List<ToLongFunction<InvertedIndex>> changes = new ArrayList<>();
+        private boolean discarded;
+    }
+
+    private static final class RoomIndex {
+        private final InvertedIndex index;
+        private volatile long lastAccess;
+
+        private RoomIndex(InvertedIndex index) {
+            this.index = index;
+        }
+    }
+}
@@ -3,15 +3,30 @@ package com.code_space.code_space.service;
 import com.code_space.code_space.dto.*;
 import com.code_space.code_space.entity.*;
 import com.code_space.code_space.repository.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -29,16 +44,45 @@ public class ChatService {
     @Autowired
     private WebSocketNotificationService notificationService;
 
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private ChatSearchIndex searchIndex;
+
+    @Autowired
+    private ChatIngestPipeline chatIngestPipeline;
+
+    @Autowired
+    private RoomCounters roomCounters;
+
+    @Autowired
+    private ChatRetentionJob chatRetentionJob;
+
+    @Autowired
+    private ChatChangeLog chatChangeLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final int SEARCH_RESULT_LIMIT = 100;
+
     public List<ChatMessageResponse> getChatMessages(Long roomId, String userEmail, int page, int size) {
         // Verify user has access to room
         if (!roomService.isUserInRoom(roomId, userEmail)) {
             throw new RuntimeException("Access denied to room chat");
         }
 
-        Room room = roomService.getRoomEntityById(roomId);
+        Room room = roomService.getRoomReference(roomId);
 
         // Check if chat is enabled
-        if (!room.getChatEnabled()) {
+        if (!roomService.getRoomSnapshot(roomId).chatEnabled()) {
             throw new RuntimeException("Chat is disabled for this room");
         }
 
@@ -49,60 +93,191 @@ public class ChatService {
                 .collect(Collectors.toList());
     }
 
-    public List<ChatMessageResponse> getRecentMessages(Long roomId, String userEmail) {
+    /**
+     * Returns one page of history using keyset pagination: at most {@code limit} messages
+     * older than {@code before}, newer than {@code after}, or the latest page if neither
+     * cursor is given. Cost does not depend on how far back the page is.
+     */
+    @Transactional(readOnly = true)
+    public ChatHistoryResponse getChatHistory(Long roomId, String userEmail, String before, String after, int limit) {
         if (!roomService.isUserInRoom(roomId, userEmail)) {
             throw new RuntimeException("Access denied to room chat");
         }
 
-        Room room = roomService.getRoomEntityById(roomId);
+        Room room = roomService.getRoomReference(roomId);
 
-        if (!room.getChatEnabled()) {
+        if (!roomService.getRoomSnapshot(roomId).chatEnabled()) {
             throw new RuntimeException("Chat is disabled for this room");
         }
 
-        return chatMessageRepository.findTop50ByRoomAndIsDeletedFalseOrderBySentAtDesc(room)
-                .stream()
+        if (before != null && after != null) {
+            throw new RuntimeException("Only one of before and after may be given");
+        }
+        if (limit < 1 || limit > 200) {
+            throw new RuntimeException("Limit must be between 1 and 200");
+        }
+
+        // Fetch one extra row to learn whether another page exists, without a COUNT
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<ChatMessage> rows;
+        if (after != null) {
+            ChatHistoryCursor cursor = ChatHistoryCursor.decode(after);
+            rows = chatMessageRepository.findPageAfter(room, cursor.sentAt(), cursor.id(), pageable);
+        } else if (before != null) {
+            ChatHistoryCursor cursor = ChatHistoryCursor.decode(before);
+            rows = chatMessageRepository.findPageBefore(room, cursor.sentAt(), cursor.id(), pageable);
+        } else {
+            rows = chatMessageRepository.findLatestPage(room, pageable);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<ChatMessage> page = new ArrayList<>(hasMore ? rows.subList(0, limit) : rows);
+        if (after == null) {
+            // Older pages are read newest first
+            Collections.reverse(page);
+        }
+
+        if (page.isEmpty()) {
+            // Nothing in range: keep the caller's position so polling can resume from it
+            return new ChatHistoryResponse(List.of(), before, after, false);
+        }
+
+        List<ChatMessageResponse> messages = page.stream()
                 .map(ChatMessageResponse::new)
                 .collect(Collectors.toList());
+        String prevCursor = ChatHistoryCursor.of(page.get(0)).encode();
+        String nextCursor = ChatHistoryCursor.of(page.get(page.size() - 1)).encode();
+        return new ChatHistoryResponse(messages, prevCursor, nextCursor, hasMore);
     }
 
-    public ChatMessageResponse sendMessage(Long roomId, String userEmail, ChatMessageRequest request) {
+    /**
+     * Returns what changed in the room's chat after sequence number {@code since}: messages
+     * sent or edited, with their current content, and ids of deleted messages. Without
+     * {@code since} only the current sequence number is returned, as a starting point.
+     * When {@code since} is older than the room's pruned tombstones the response only asks
+     * the client to reload the chat.
+     */
+    @Transactional(readOnly = true)
+    public ChatChangesResponse getChatChanges(Long roomId, String userEmail, Long since, int limit) {
         if (!roomService.isUserInRoom(roomId, userEmail)) {
             throw new RuntimeException("Access denied to room chat");
         }
 
-        Room room = roomService.getRoomEntityById(roomId);
-        User user = userService.findByEmail(userEmail);
-
-        if (!room.getChatEnabled()) {
+        if (!roomService.getRoomSnapshot(roomId).chatEnabled()) {
             throw new RuntimeException("Chat is disabled for this room");
         }
 
-        // Create chat message
-        ChatMessage chatMessage = new ChatMessage(room, user, request.getMessage());
+        if (limit < 1 || limit > 500) {
+            throw new RuntimeException("Limit must be between 1 and 500");
+        }
+        if (since == null) {
+            return new ChatChangesResponse(List.of(), List.of(), chatChangeLog.getLatestSeq(roomId), false);
+        }
+        if (since < 0) {
+            throw new RuntimeException("Since must not be negative");
+        }
 
-        if (request.getReplyToMessageId() != null) {
-            ChatMessage replyToMessage = chatMessageRepository.findById(request.getReplyToMessageId())
-                    .orElseThrow(() -> new RuntimeException("Reply message not found"));
-            chatMessage.setReplyToMessage(replyToMessage);
+        List<ChatMessage> rows = chatMessageRepository.findChangesSince(roomId, since, PageRequest.of(0, limit + 1));
+        List<ChatChangeLog.Tombstone> tombstones = chatChangeLog.findTombstonesSince(roomId, since, limit + 1);
+        // Read after the tombstones: a prune that removed any of them has already moved the horizon
+        if (since < chatChangeLog.getHorizon(roomId)) {
+            return ChatChangesResponse.resyncRequired(chatChangeLog.getLatestSeq(roomId));
         }
 
-        if (request.getAttachmentUrl() != null) {
-            chatMessage.setAttachmentUrl(request.getAttachmentUrl());
-            chatMessage.setAttachmentType(request.getAttachmentType());
+        // Merge live rows and retention tombstones in change order
+        List<ChatMessageResponse> messages = new ArrayList<>();
+        List<Long> deletedMessageIds = new ArrayList<>();
+        long latestSeq = since;
+        int r = 0;
+        int t = 0;
+        while (r + t < limit && (r < rows.size() || t < tombstones.size())) {
+            boolean takeRow = t == tombstones.size()
+                    || (r < rows.size() && rows.get(r).getChangeSeq() < tombstones.get(t).changeSeq());
+            if (takeRow) {
+                ChatMessage chatMessage = rows.get(r++);
+                if (chatMessage.getIsDeleted()) {
+                    deletedMessageIds.add(chatMessage.getId());
+                } else {
+                    messages.add(new ChatMessageResponse(chatMessage));
+                }
+                latestSeq = chatMessage.getChangeSeq();
+            } else {
+                ChatChangeLog.Tombstone tombstone = tombstones.get(t++);
+                deletedMessageIds.add(tombstone.messageId());
+                latestSeq = tombstone.changeSeq();
+            }
         }
+        boolean hasMore = r < rows.size() || t < tombstones.size();
 
-        chatMessage = chatMessageRepository.save(chatMessage);
+        return new ChatChangesResponse(messages, deletedMessageIds, latestSeq, hasMore);
+    }
+
+    public List<ChatMessageResponse> getRecentMessages(Long roomId, String userEmail) {
+        if (!roomService.isUserInRoom(roomId, userEmail)) {
+            throw new RuntimeException("Access denied to room chat");
+        }
+
+        Room room = roomService.getRoomReference(roomId);
+
+        if (!roomService.getRoomSnapshot(roomId).chatEnabled()) {
+            throw new RuntimeException("Chat is disabled for this room");
+        }
+
+        return recentMessageCache.getRecent(roomId, () ->
+                chatMessageRepository.findTop50ByRoomAndIsDeletedFalseOrderBySentAtDesc(room)
+                        .stream()
+                        .map(ChatMessageResponse::new)
+                        .collect(Collectors.toList()));
+    }
+
+    // No transaction while waiting on the ingest pipeline: the checks run in their own short
+    // transaction so the caller never holds a pooled connection until its batch commits
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ChatMessageResponse sendMessage(Long roomId, String userEmail, ChatMessageRequest request) {
+        ChatMessage chatMessage = transactionTemplate.execute(status -> {
+            if (!roomService.isUserInRoom(roomId, userEmail)) {
+                throw new RuntimeException("Access denied to room chat");
+            }
+
+            Room room = roomService.getRoomReference(roomId);
+            User user = userService.findByEmail(userEmail);
+
+            if (!roomService.getRoomSnapshot(roomId).chatEnabled()) {
+                throw new RuntimeException("Chat is disabled for this room");
+            }
+
+            // Create chat message
+            ChatMessage message = new ChatMessage(room, user, request.getMessage());
+
+            if (request.getReplyToMessageId() != null) {
+                ChatMessage replyToMessage = chatMessageRepository.findById(request.getReplyToMessageId())
+                        .orElseThrow(() -> new RuntimeException("Reply message not found"));
+                // The reply preview is built after this transaction ends
+                Hibernate.initialize(replyToMessage.getUser());
+                message.setReplyToMessage(replyToMessage);
+            }
+
+            if (request.getAttachmentUrl() != null) {
+                message.setAttachmentUrl(request.getAttachmentUrl());
+                message.setAttachmentType(request.getAttachmentType());
+            }
+            return message;
+        });
+        Room room = chatMessage.getRoom();
+
+        // Returns once the message's group commit has gone through
+        chatMessage = chatIngestPipeline.write(chatMessage);
 
         // Update room statistics
-        room.incrementMessageCount();
-        roomService.updateRoomEntity(room);
+        roomCounters.incrementMessagesSent(roomId);
 
         // Update participant statistics
         // Note: This would require updating RoomParticipant to include the incrementMessageCount method
 
         // Send WebSocket notification
         ChatMessageResponse response = new ChatMessageResponse(chatMessage);
+        recentMessageCache.onMessageSent(roomId, response);
+        searchIndex.onMessageSaved(roomId, chatMessage.getId(), chatMessage.getMessage());
         notificationService.sendChatMessageNotification(room, response);
 
         return response;
@@ -132,9 +307,12 @@ public class ChatService {
         chatMessage.setMessage(request.getMessage());
         chatMessage.setIsEdited(true);
         chatMessage = chatMessageRepository.save(chatMessage);
+        chatChangeLog.recordChange(roomId, chatMessage.getId());
 
         // Send WebSocket notification for edit
         ChatMessageResponse response = new ChatMessageResponse(chatMessage);
+        recentMessageCache.onMessageEdited(roomId, response);
+        searchIndex.onMessageSaved(roomId, chatMessage.getId(), chatMessage.getMessage());
         notificationService.sendChatMessageEditNotification(chatMessage.getRoom(), response);
 
         return response;
@@ -172,6 +350,9 @@ public class ChatService {
         // Soft delete
         chatMessage.setIsDeleted(true);
         chatMessageRepository.save(chatMessage);
+        chatChangeLog.recordChange(roomId, messageId);
+        recentMessageCache.onMessageDeleted(roomId, messageId);
+        searchIndex.onMessageDeleted(roomId, messageId);
 
         // Send WebSocket notification
         notificationService.sendChatMessageDeleteNotification(room, messageId);
@@ -182,16 +363,49 @@ public class ChatService {
             throw new RuntimeException("Access denied to room chat");
         }
 
-        Room room = roomService.getRoomEntityById(roomId);
+        List<Long> ids = searchIndex.search(roomId, searchTerm, SEARCH_RESULT_LIMIT);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
 
-        return chatMessageRepository.searchMessagesInRoom(room, searchTerm)
+        // Load the hits by primary key and keep the index's ranking
+        Map<Long, ChatMessage> byId = chatMessageRepository.findVisibleByIdIn(ids)
                 .stream()
+                .collect(Collectors.toMap(ChatMessage::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .map(ChatMessageResponse::new)
                 .collect(Collectors.toList());
     }
 
+    public void verifyExportAccess(Long roomId, String userEmail) {
+        if (!roomService.isUserInRoom(roomId, userEmail)) {
+            throw new RuntimeException("Access denied to room chat");
+        }
+    }
+
+    /**
+     * Streams the room's transcript to {@code out}, oldest message first. Rows are read
+     * through a database cursor and detached once written, so memory use does not depend
+     * on the size of the transcript.
+     */
+    @Transactional(readOnly = true)
+    public long exportTranscript(Long roomId, ChatTranscriptWriter.Format format, OutputStream out) throws IOException {
+        ChatTranscriptWriter writer = new ChatTranscriptWriter(format, out, objectMapper);
+        try (Stream<ChatMessage> messages = chatMessageRepository.streamTranscript(roomId)) {
+            Iterator<ChatMessage> iterator = messages.iterator();
+            while (iterator.hasNext()) {
+                ChatMessage message = iterator.next();
+                writer.write(message);
+                entityManager.detach(message);
+            }
+        }
+        return writer.finish();
+    }
+
     public void sendSystemMessage(Long roomId, String message) {
-        Room room = roomService.getRoomEntityById(roomId);
+        Room room = roomService.getRoomReference(roomId);
 
         ChatMessage systemMessage = new ChatMessage();
         systemMessage.setRoom(room);
@@ -199,17 +413,20 @@ public class ChatService {
         systemMessage.setType(MessageType.SYSTEM);
 
         systemMessage = chatMessageRepository.save(systemMessage);
+        chatChangeLog.recordChange(roomId, systemMessage.getId());
 
         // Send WebSocket notification
         ChatMessageResponse response = new ChatMessageResponse(systemMessage);
+        recentMessageCache.onMessageSent(roomId, response);
+        searchIndex.onMessageSaved(roomId, systemMessage.getId(), systemMessage.getMessage());
         notificationService.sendChatMessageNotification(room, response);
     }
 
     // Cleanup old messages (can be called by scheduled task)
-    @Transactional
+    // Not transactional: each retention batch commits on its own
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void cleanupOldMessages(int daysToKeep) {
         LocalDateTime cutoff = LocalDateTime.now().minusDays(daysToKeep);
-        // Implementation would need to be added to repository
-        // chatMessageRepository.deleteByRoomAndSentAtBefore(room, cutoff);
+        chatRetentionJob.purgeOlderThan(cutoff);
     }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.ChatMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes a chat transcript one message at a time, so the output can be streamed without
+ * holding the transcript in memory. Nothing is kept per message after it is written.
+ */
+public class ChatTranscriptWriter {
+
+    public enum Format {
+        NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),
+        CSV("csv", MediaType.parseMediaType("text/csv"));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() { return extension; }
+        public MediaType getMediaType() { return mediaType; }
+
+        public static Format fromParam(String value) {
+            try {
+                return Format.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private static final String CSV_HEADER = "id,sent_at,sender_name,sender_email,type,message,edited,edited_at,reply_to_message_id";
+    private static final int FLUSH_EVERY = 1000;
+
+    private final Format format;
+    private final Writer writer;
+    private final ObjectWriter rowWriter;
+    private long written;
+
+    public ChatTranscriptWriter(Format format, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.rowWriter = objectMapper.writerFor(TranscriptRow.class);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+
+    public void write(ChatMessage message) throws IOException {
+        TranscriptRow row = new TranscriptRow(
+                message.getId(),
+                message.getSentAt() != null ? message.getSentAt().toString() : null,
+                message.getSenderName(),
+                message.getSenderEmail(),
+                message.getType() != null ? message.getType().name() : null,
+                message.getMessage(),
+                Boolean.TRUE.equals(message.getIsEdited()),
+                message.getEditedAt() != null ? message.getEditedAt().toString() : null,
+                // Only the id; reading the replied-to message would cost a query per row
+                message.getReplyToMessage() != null ? message.getReplyToMessage().getId() : null
+        );
+
+        if (format == Format.NDJSON) {
+            writer.write(rowWriter.writeValueAsString(row));
+        } else {
+            writeCsv(row);
+        }
+        writer.write('\n');
+
+        // Push rows out regularly so the client sees progress on long exports
+        if (++written % FLUSH_EVERY == 0) {
+            writer.flush();
+        }
+    }
+
+    public long finish() throws IOException {
+        writer.flush();
+        return written;
+    }
+
+    private void writeCsv(TranscriptRow row) throws IOException {
+        writer.write(String.valueOf(row.id()));
+        writer.write(',');
+        writer.write(csv(row.sentAt()));
+        writer.write(',');
+        writer.write(csv(row.senderName()));
+        writer.write(',');
+        writer.write(csv(row.senderEmail()));
+        writer.write(',');
+        writer.write(csv(row.type()));
+        writer.write(',');
+        writer.write(csv(row.message()));
+        writer.write(',');
+        writer.write(String.valueOf(row.edited()));
+        writer.write(',');
+        writer.write(csv(row.editedAt()));
+        writer.write(',');
+        writer.write(row.replyToMessageId() != null ? String.valueOf(row.replyToMessageId()) : "");
+    }
+
+    private static String csv(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+
+        // Stop spreadsheets from evaluating user text as a formula
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            value = "'" + value;
+        }
+
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    record TranscriptRow(Long id, String sentAt, String senderName, String senderEmail, String type,
+                         String message, boolean edited, String editedAt, Long replyToMessageId) {
+    }
+}
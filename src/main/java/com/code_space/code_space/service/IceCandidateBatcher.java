@@ -0,0 +1,79 @@
+package com.code_space.code_space.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds trickled ICE candidates per (room, from, to) for a short window so they can be
+ * delivered as one {@code ice-candidates} message.
+ *
+ * Batches are only touched from their room's signaling lane; the timer here merely
+ * decides when the lane should flush them.
+ */
+@Component
+public class IceCandidateBatcher {
+
+    @Value("${webrtc.ice.batch-window-ms:20}")
+    private long batchWindowMs;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ice-batch-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<BatchKey, List<Object>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a candidate to its batch.
+     *
+     * @return true if this candidate opened a new batch and a flush should be scheduled
+     */
+    public boolean add(String roomId, String fromParticipantId, String toParticipantId, Object candidate) {
+        boolean[] opened = {false};
+        List<Object> batch = pending.computeIfAbsent(new BatchKey(roomId, fromParticipantId, toParticipantId), key -> {
+            opened[0] = true;
+            return new ArrayList<>();
+        });
+        if (candidate != null) {
+            batch.add(candidate);
+        }
+        return opened[0];
+    }
+
+    /**
+     * Removes and returns the batch, or an empty list if it was already flushed.
+     */
+    public List<Object> drain(String roomId, String fromParticipantId, String toParticipantId) {
+        List<Object> batch = pending.remove(new BatchKey(roomId, fromParticipantId, toParticipantId));
+        return batch != null ? batch : List.of();
+    }
+
+    /**
+     * Runs the flush after the batch window; the task is expected to hop onto the room's lane.
+     */
+    public void scheduleFlush(Runnable flush) {
+        timer.schedule(flush, batchWindowMs, TimeUnit.MILLISECONDS);
+    }
+
+    public int getPendingBatchCount() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private record BatchKey(String roomId, String fromParticipantId, String toParticipantId) {
+    }
+}
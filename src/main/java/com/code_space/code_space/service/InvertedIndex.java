@@ -0,0 +1,183 @@
+package com.code_space.code_space.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Token index over one room's messages, supporting prefix queries.
+ *
+ * Terms are kept sorted so every term starting with a query token is a contiguous range.
+ * A message matches when each query token is a prefix of one of its terms; results are
+ * ranked by how many tokens matched a whole term, then by term frequency, then newest
+ * first. Not thread-safe; {@link ChatSearchIndex} serializes access per room.
+ */
+class InvertedIndex {
+
+    // Rough per-entry costs used for the memory budget, not exact heap sizes
+    private static final int POSTING_BYTES = 48;
+    private static final int TERM_BYTES = 64;
+    private static final int DOCUMENT_BYTES = 80;
+
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    private long estimatedBytes;
+
+    /**
+     * Indexes or re-indexes a message and returns the change in estimated size.
+     */
+    long put(Long messageId, String text) {
+        long before = estimatedBytes;
+        remove(messageId);
+
+        Map<String, Integer> terms = termFrequencies(text);
+        if (terms.isEmpty()) {
+            return estimatedBytes - before;
+        }
+
+        documents.put(messageId, terms);
+        estimatedBytes += DOCUMENT_BYTES;
+        terms.forEach((term, frequency) -> {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting == null) {
+                posting = new HashMap<>();
+                postings.put(term, posting);
+                estimatedBytes += TERM_BYTES + 2L * term.length();
+            }
+            posting.put(messageId, frequency);
+            estimatedBytes += POSTING_BYTES;
+        });
+        return estimatedBytes - before;
+    }
+
+    /**
+     * Drops a message and returns the change in estimated size.
+     */
+    long remove(Long messageId) {
+        Map<String, Integer> terms = documents.remove(messageId);
+        if (terms == null) {
+            return 0;
+        }
+
+        long before = estimatedBytes;
+        estimatedBytes -= DOCUMENT_BYTES;
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null && posting.remove(messageId) != null) {
+                estimatedBytes -= POSTING_BYTES;
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                    estimatedBytes -= TERM_BYTES + 2L * term.length();
+                }
+            }
+        }
+        return estimatedBytes - before;
+    }
+
+    /**
+     * Returns the ids of matching messages, best match first.
+     */
+    List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Score> candidates = null;
+        for (String token : tokens) {
+            Map<Long, Score> previous = candidates;
+            Map<Long, Score> matches = new HashMap<>();
+            for (Map.Entry<String, Map<Long, Integer>> entry : prefixRange(token).entrySet()) {
+                boolean exact = entry.getKey().equals(token);
+                entry.getValue().forEach((messageId, frequency) -> {
+                    if (previous == null || previous.containsKey(messageId)) {
+                        matches.computeIfAbsent(messageId, id -> new Score()).add(exact, frequency);
+                    }
+                });
+            }
+
+            if (previous != null) {
+                // Every token must match; carry earlier tokens' scores forward
+                matches.forEach((messageId, score) -> score.merge(previous.get(messageId)));
+            }
+            candidates = matches;
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Map.Entry<Long, Score>> ranked = new ArrayList<>(candidates.entrySet());
+        ranked.sort(Comparator.<Map.Entry<Long, Score>>comparingInt(entry -> entry.getValue().exactMatches).reversed()
+                .thenComparing(Comparator.<Map.Entry<Long, Score>>comparingInt(entry -> entry.getValue().frequency).reversed())
+                .thenComparing(Map.Entry.<Long, Score>comparingByKey().reversed()));
+
+        List<Long> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            result.add(ranked.get(i).getKey());
+        }
+        return result;
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String token : tokenize(text)) {
+            terms.merge(token, 1, Integer::sum);
+        }
+        return terms;
+    }
+
+    private NavigableMap<String, Map<Long, Integer>> prefixRange(String prefix) {
+        // Every term starting with the prefix sorts before prefix + the highest char
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static final class Score {
+        private int exactMatches;
+        private int frequency;
+
+        private void add(boolean exact, int termFrequency) {
+            if (exact) {
+                exactMatches = Math.max(exactMatches, 1);
+            }
+            frequency += termFrequency;
+        }
+
+        private void merge(Score earlier) {
+            exactMatches += earlier.exactMatches;
+            frequency += earlier.frequency;
+        }
+    }
+}
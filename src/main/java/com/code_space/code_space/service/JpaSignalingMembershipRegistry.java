@@ -0,0 +1,222 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.SignalingMembership;
+import com.code_space.code_space.entity.SignalingNode;
+import com.code_space.code_space.repository.SignalingMembershipRepository;
+import com.code_space.code_space.repository.SignalingNodeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Database-backed membership shared by all nodes in clustered mode.
+ *
+ * Each row records the node holding the participant's connection. Nodes heartbeat into
+ * {@code signaling_nodes}; any node sweeps the memberships of nodes whose heartbeat is
+ * older than {@code app.websocket.node.ttl-ms}, so a crashed node's members do not linger.
+ *
+ * Room rosters are cached locally. This node's own joins and leaves are applied to the
+ * cache as they are written; changes made through other nodes are picked up once a cached
+ * roster is older than {@code app.websocket.membership.cache-ttl-ms}.
+ *
+ * Only membership is shared. {@link RoomStateLog} versions and {@link RoomSessionState}
+ * are still kept per node, so reconnect deltas and session state are only consistent while
+ * a room's members are all on one node.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.relay.enabled", havingValue = "true")
+public class JpaSignalingMembershipRegistry implements SignalingMembershipRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(JpaSignalingMembershipRegistry.class);
+
+    @Autowired
+    private SignalingMembershipRepository membershipRepository;
+
+    @Autowired
+    private SignalingNodeRepository nodeRepository;
+
+    @Value("${app.websocket.membership.cache-ttl-ms:1000}")
+    private long cacheTtlMs;
+
+    @Value("${app.websocket.node.ttl-ms:30000}")
+    private long nodeTtlMs;
+
+    private final String nodeId;
+
+    private final Map<String, CachedRoster> rosters = new ConcurrentHashMap<>();
+
+    // Rooms of the participants whose connection this node holds
+    private final Map<String, String> localRoomOf = new ConcurrentHashMap<>();
+
+    public JpaSignalingMembershipRegistry(@Value("${app.websocket.node-id:}") String nodeId) {
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    @PostConstruct
+    public void registerNode() {
+        heartbeat();
+    }
+
+    // Not transactional on purpose: a concurrent insert from another node must not poison an outer transaction
+    @Override
+    public void join(String roomId, String participantId) {
+        SignalingMembership membership = membershipRepository.findByRoomIdAndParticipantId(roomId, participantId)
+                .orElseGet(() -> new SignalingMembership(roomId, participantId, nodeId));
+        membership.setNodeId(nodeId);
+        membership.setJoinedAt(LocalDateTime.now());
+        try {
+            membershipRepository.save(membership);
+        } catch (DataIntegrityViolationException e) {
+            // Joined concurrently through another node; the existing row is equivalent
+            logger.debug("Membership of {} in room {} already recorded", participantId, roomId);
+        }
+
+        localRoomOf.put(participantId, roomId);
+        rosters.computeIfPresent(roomId, (key, roster) -> roster.with(participantId));
+    }
+
+    @Override
+    @Transactional
+    public void leave(String roomId, String participantId) {
+        membershipRepository.deleteMembership(roomId, participantId);
+        localRoomOf.remove(participantId, roomId);
+        rosters.computeIfPresent(roomId, (key, roster) -> roster.without(participantId));
+    }
+
+    @Override
+    @Transactional
+    public Set<String> clearRoom(String roomId) {
+        Set<String> participants = new HashSet<>(membershipRepository.findParticipantIdsByRoomId(roomId));
+        membershipRepository.deleteByRoom(roomId);
+        rosters.remove(roomId);
+        participants.forEach(participantId -> localRoomOf.remove(participantId, roomId));
+        return participants;
+    }
+
+    @Override
+    public Set<String> getParticipants(String roomId) {
+        return new HashSet<>(getRoster(roomId));
+    }
+
+    @Override
+    public int countParticipants(String roomId) {
+        return getRoster(roomId).size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getRoomOf(String participantId) {
+        String local = localRoomOf.get(participantId);
+        if (local != null) {
+            return local;
+        }
+        return membershipRepository.findFirstByParticipantIdOrderByJoinedAtDesc(participantId)
+                .map(SignalingMembership::getRoomId)
+                .orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Set<String>> getRoomParticipants() {
+        return membershipRepository.findAll().stream()
+                .collect(Collectors.groupingBy(SignalingMembership::getRoomId,
+                        Collectors.mapping(SignalingMembership::getParticipantId, Collectors.toSet())));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, String> getParticipantToRoomMapping() {
+        Map<String, String> mapping = new HashMap<>();
+        membershipRepository.findAll().forEach(m -> mapping.put(m.getParticipantId(), m.getRoomId()));
+        return mapping;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Scheduled(fixedDelayString = "${app.websocket.node.heartbeat-interval-ms:5000}")
+    public void heartbeat() {
+        try {
+            SignalingNode node = nodeRepository.findById(nodeId).orElseGet(() -> new SignalingNode(nodeId));
+            node.setLastHeartbeatAt(LocalDateTime.now());
+            nodeRepository.save(node);
+        } catch (Exception e) {
+            logger.warn("Failed to record heartbeat for node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the memberships of nodes that stopped heartbeating, then the nodes themselves.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.node.heartbeat-interval-ms:5000}")
+    public void sweepExpiredNodes() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusNanos(nodeTtlMs * 1_000_000);
+            int removed = membershipRepository.deleteOrphaned(cutoff);
+            nodeRepository.deleteExpired(cutoff);
+            if (removed > 0) {
+                logger.warn("Removed {} signaling memberships held by expired nodes", removed);
+                rosters.clear();
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to sweep expired signaling nodes: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void releaseNodeMemberships() {
+        try {
+            int removed = membershipRepository.deleteByNode(nodeId);
+            nodeRepository.deleteById(nodeId);
+            logger.info("Released {} signaling memberships held by node {}", removed, nodeId);
+        } catch (Exception e) {
+            logger.warn("Failed to release memberships for node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private Set<String> getRoster(String roomId) {
+        CachedRoster cached = rosters.get(roomId);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.loadedAt() <= cacheTtlMs) {
+            return cached.participants();
+        }
+
+        // Loaded outside the map; a local join or leave racing the load is caught on the next reload
+        Set<String> participants = Set.copyOf(membershipRepository.findParticipantIdsByRoomId(roomId));
+        rosters.put(roomId, new CachedRoster(participants, now));
+        return participants;
+    }
+
+    private record CachedRoster(Set<String> participants, long loadedAt) {
+
+        CachedRoster with(String participantId) {
+            Set<String> updated = new HashSet<>(participants);
+            updated.add(participantId);
+            return new CachedRoster(Set.copyOf(updated), loadedAt);
+        }
+
+        CachedRoster without(String participantId) {
+            Set<String> updated = new HashSet<>(participants);
+            updated.remove(participantId);
+            return new CachedRoster(Set.copyOf(updated), loadedAt);
+        }
+    }
+}
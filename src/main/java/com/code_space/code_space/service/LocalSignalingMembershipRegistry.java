@@ -0,0 +1,74 @@
+package com.code_space.code_space.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory membership for single-node deployments (the default).
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.relay.enabled", havingValue = "false", matchIfMissing = true)
+public class LocalSignalingMembershipRegistry implements SignalingMembershipRegistry {
+
+    private final Map<String, Set<String>> roomParticipants = new ConcurrentHashMap<>();
+    private final Map<String, String> participantToRoom = new ConcurrentHashMap<>();
+
+    @Override
+    public void join(String roomId, String participantId) {
+        roomParticipants.computeIfAbsent(roomId, k -> ConcurrentHashMap.newKeySet()).add(participantId);
+        participantToRoom.put(participantId, roomId);
+    }
+
+    @Override
+    public void leave(String roomId, String participantId) {
+        roomParticipants.computeIfPresent(roomId, (k, participants) -> {
+            participants.remove(participantId);
+            // Drop the room once it is empty
+            return participants.isEmpty() ? null : participants;
+        });
+        participantToRoom.remove(participantId, roomId);
+    }
+
+    @Override
+    public Set<String> clearRoom(String roomId) {
+        Set<String> participants = roomParticipants.remove(roomId);
+        if (participants == null) {
+            return Set.of();
+        }
+        participants.forEach(participantId -> participantToRoom.remove(participantId, roomId));
+        return new HashSet<>(participants);
+    }
+
+    @Override
+    public Set<String> getParticipants(String roomId) {
+        Set<String> participants = roomParticipants.get(roomId);
+        return participants != null ? new HashSet<>(participants) : Set.of();
+    }
+
+    @Override
+    public int countParticipants(String roomId) {
+        Set<String> participants = roomParticipants.get(roomId);
+        return participants != null ? participants.size() : 0;
+    }
+
+    @Override
+    public String getRoomOf(String participantId) {
+        return participantToRoom.get(participantId);
+    }
+
+    @Override
+    public Map<String, Set<String>> getRoomParticipants() {
+        return new HashMap<>(roomParticipants);
+    }
+
+    @Override
+    public Map<String, String> getParticipantToRoomMapping() {
+        return new HashMap<>(participantToRoom);
+    }
+}
@@ -0,0 +1,41 @@
+package com.code_space.code_space.service;
+
+/**
+ * A real-time notification raised by a service, delivered by {@link NotificationEventDispatcher}
+ * once the publishing transaction has committed.
+ *
+ * @param roomId       room the notification belongs to, or null for personal notifications
+ * @param audience     who receives it
+ * @param destination  topic (room audience) or user destination (host and user audiences)
+ * @param payload      message body, fully built by the publisher
+ * @param targetUserId the host for {@link Audience#HOSTS}, the recipient for {@link Audience#USER}
+ */
+public record NotificationEvent(Long roomId, Audience audience, String destination, Object payload, String targetUserId) {
+
+    public enum Audience {
+        /**
+         * The room topic plus every participant's personal room-events channel.
+         */
+        ROOM,
+        /**
+         * The host and the room's co-hosts.
+         */
+        HOSTS,
+        /**
+         * A single user.
+         */
+        USER
+    }
+
+    public static NotificationEvent toRoom(Long roomId, String destination, Object payload) {
+        return new NotificationEvent(roomId, Audience.ROOM, destination, payload, null);
+    }
+
+    public static NotificationEvent toHosts(Long roomId, String hostUserId, String destination, Object payload) {
+        return new NotificationEvent(roomId, Audience.HOSTS, destination, payload, hostUserId);
+    }
+
+    public static NotificationEvent toUser(String userId, String destination, Object payload) {
+        return new NotificationEvent(null, Audience.USER, destination, payload, userId);
+    }
+}
@@ -0,0 +1,213 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.ParticipantRole;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers {@link NotificationEvent}s after the publishing transaction commits.
+ *
+ * Events are only queued here, so the request thread and its connection are released
+ * without waiting for the broker. A dedicated thread drains the queue every batch window:
+ * events for the same room that arrived in one window are delivered together, resolving
+ * the roster once and handing each priority class to {@link PriorityDispatcher} as a single
+ * task. Events from rolled-back transactions are never delivered; events published outside
+ * a transaction are queued immediately.
+ */
+@Component
+public class NotificationEventDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationEventDispatcher.class);
+
+    private static final Set<String> INTERACTIVE_TYPES = Set.of(
+            "NEW_CHAT_MESSAGE", "CHAT_MESSAGE_EDITED", "CHAT_MESSAGE_DELETED");
+    private static final Set<String> TELEMETRY_TYPES = Set.of(
+            "NEW_REACTION", "REACTION_BURST", "CONNECTION_QUALITY_UPDATE", "ACTIVE_SPEAKER_CHANGED");
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private RoomRosterCache rosterCache;
+
+    @Autowired
+    private PriorityDispatcher dispatcher;
+
+    @Value("${app.notifications.batch-window-ms:10}")
+    private long batchWindowMs;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Long, List<NotificationEvent>> pendingByRoom = new ConcurrentHashMap<>();
+    private final Queue<NotificationEvent> pendingPersonal = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private final AtomicLong eventsQueued = new AtomicLong();
+    private final AtomicLong roomBatches = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotification(NotificationEvent event) {
+        if (event.roomId() != null) {
+            pendingByRoom.compute(event.roomId(), (roomId, batch) -> {
+                List<NotificationEvent> events = batch != null ? batch : new ArrayList<>();
+                events.add(event);
+                return events;
+            });
+        } else {
+            pendingPersonal.add(event);
+        }
+        eventsQueued.incrementAndGet();
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::flush, batchWindowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("eventsQueued", eventsQueued.get());
+        metrics.put("roomBatches", roomBatches.get());
+        metrics.put("largestBatch", largestBatch.get());
+        metrics.put("pendingRooms", pendingByRoom.size());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        flush();
+    }
+
+    private void flush() {
+        // Cleared first so events queued while we drain schedule the next window
+        flushScheduled.set(false);
+
+        for (Long roomId : pendingByRoom.keySet()) {
+            List<NotificationEvent> batch = pendingByRoom.remove(roomId);
+            if (batch != null) {
+                try {
+                    deliverRoomBatch(roomId, batch);
+                } catch (Exception e) {
+                    logger.error("Failed to deliver {} notifications for room {}: {}", batch.size(), roomId, e.getMessage(), e);
+                }
+            }
+        }
+
+        NotificationEvent personal;
+        while ((personal = pendingPersonal.poll()) != null) {
+            NotificationEvent event = personal;
+            submit("user:" + event.targetUserId(), priorityOf(event.payload()),
+                    List.of(() -> sendToUser(event.targetUserId(), event)));
+        }
+    }
+
+    private void deliverRoomBatch(Long roomId, List<NotificationEvent> batch) {
+        roomBatches.incrementAndGet();
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+
+        List<RoomRosterCache.RosterEntry> roster = rosterCache.getRoster(roomId);
+        List<String> userIds = new ArrayList<>();
+        List<String> coHostIds = new ArrayList<>();
+        for (RoomRosterCache.RosterEntry entry : roster) {
+            if (entry.userId() == null) {
+                continue;
+            }
+            userIds.add(entry.userId().toString());
+            if (entry.role() == ParticipantRole.CO_HOST) {
+                coHostIds.add(entry.userId().toString());
+            }
+        }
+
+        // One task per class keeps publish order within a class
+        Map<SignalPriority, List<Runnable>> sends = new EnumMap<>(SignalPriority.class);
+        for (NotificationEvent event : batch) {
+            Runnable send = switch (event.audience()) {
+                case ROOM -> () -> sendToRoom(event, userIds);
+                case HOSTS -> () -> sendToHosts(event, coHostIds);
+                case USER -> () -> sendToUser(event.targetUserId(), event);
+            };
+            sends.computeIfAbsent(priorityOf(event.payload()), priority -> new ArrayList<>()).add(send);
+        }
+        // Same lane key as the room's signaling so its control frames share one priority order
+        String laneKey = roomId.toString();
+        sends.forEach((priority, roomSends) -> submit(laneKey, priority, roomSends));
+    }
+
+    private void submit(String laneKey, SignalPriority priority, List<Runnable> sends) {
+        dispatcher.submit(laneKey, priority, () -> sends.forEach(Runnable::run));
+    }
+
+    private void sendToRoom(NotificationEvent event, List<String> userIds) {
+        Map<String, Object> headers = headersFor(event.payload());
+
+        // Send to the general room topic
+        messagingTemplate.convertAndSend(event.destination(), event.payload(), headers);
+
+        // Also send to each participant's personal notification channel
+        for (String userId : userIds) {
+            messagingTemplate.convertAndSendToUser(userId, "/topic/room-events", event.payload(), headers);
+        }
+    }
+
+    private void sendToHosts(NotificationEvent event, List<String> coHostIds) {
+        Map<String, Object> headers = headersFor(event.payload());
+
+        // Send to host
+        if (event.targetUserId() != null) {
+            messagingTemplate.convertAndSendToUser(event.targetUserId(), event.destination(), event.payload(), headers);
+        }
+
+        // Send to co-hosts
+        for (String coHostId : coHostIds) {
+            messagingTemplate.convertAndSendToUser(coHostId, event.destination(), event.payload(), headers);
+        }
+    }
+
+    private void sendToUser(String userId, NotificationEvent event) {
+        messagingTemplate.convertAndSendToUser(userId, event.destination(), event.payload(), headersFor(event.payload()));
+    }
+
+    private Map<String, Object> headersFor(Object payload) {
+        return Map.of(SignalPriority.HEADER, priorityOf(payload).name());
+    }
+
+    private SignalPriority priorityOf(Object payload) {
+        Object type = payload instanceof Map<?, ?> map ? map.get("type") : null;
+        if (type == null) {
+            return SignalPriority.CONTROL;
+        }
+        if (INTERACTIVE_TYPES.contains(type)) {
+            return SignalPriority.NEGOTIATION;
+        }
+        if (TELEMETRY_TYPES.contains(type)) {
+            return SignalPriority.TELEMETRY;
+        }
+        return SignalPriority.CONTROL;
+    }
+}
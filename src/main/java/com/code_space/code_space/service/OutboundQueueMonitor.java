@@ -0,0 +1,280 @@
+package com.code_space.code_space.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Orders each WebSocket session's outbound frames by priority, tracks how many MESSAGE
+ * frames it has been handed but not yet written to its socket, and applies the
+ * slow-consumer policy.
+ *
+ * Frames for a session are held here and released into the outbound channel one at a
+ * time, the next once the previous has been handled, which keeps them in publish order
+ * the way {@code preservePublishOrder} would. A session's backlog therefore builds up in
+ * this stage rather than in the channel's shared queue, and it is released by
+ * {@link SignalPriority}: control frames go out ahead of queued negotiation, and both
+ * ahead of telemetry, each class in its own publish order. Frames other than MESSAGE
+ * (CONNECTED, receipts, errors) are released as control.
+ *
+ * Once a session's backlog passes the droppable threshold, droppable frames (telemetry
+ * such as connection-status updates and reactions) are discarded for it. Only control
+ * frames count towards eviction: once the session has more than the control limit of them
+ * outstanding it is closed so its buffer can be reclaimed, and the client reconnects and
+ * resyncs. A burst of negotiation frames is left to the transport's send buffer and time
+ * limits instead, so a join storm's ICE traffic does not disconnect anyone by itself.
+ */
+@Component
+public class OutboundQueueMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundQueueMonitor.class);
+
+    private static final String PRIORITY_HEADER_LINE = "\n" + SignalPriority.HEADER + ":";
+
+    // Marks a frame this stage has released, so the channel lets it through on its second pass
+    private static final String RELEASED_HEADER = OutboundQueueMonitor.class.getName() + ".released";
+
+    @Value("${app.websocket.outbound.droppable-depth:64}")
+    private int droppableDepth;
+
+    @Value("${app.websocket.outbound.max-control-depth:256}")
+    private int maxControlDepth;
+
+    private final Map<String, SessionQueue> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicLong evictedSessions = new AtomicLong();
+
+    public void register(WebSocketSession session) {
+        sessions.put(session.getId(), new SessionQueue(session));
+    }
+
+    public void unregister(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Called as an outbound message enters the channel. Returns the message if it should go
+     * straight through, or null if it was queued for its session or discarded.
+     */
+    public Message<?> schedule(Message<?> message, MessageChannel channel) {
+        if (message.getHeaders().containsKey(RELEASED_HEADER)) {
+            return message;
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionQueue queue = sessionId != null ? sessions.get(sessionId) : null;
+        if (queue == null) {
+            return message;
+        }
+
+        boolean isMessage = SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE;
+        SignalPriority priority = isMessage ? priorityOf(message) : SignalPriority.CONTROL;
+        if (isMessage && !admit(queue, priority)) {
+            return null;
+        }
+
+        queue.pending.get(priority).add(message);
+        releaseNext(queue, channel);
+        return null;
+    }
+
+    /**
+     * Called once the channel has handed a frame to its session; releases the session's next frame.
+     */
+    public void onHandled(Message<?> message, MessageChannel channel) {
+        if (!message.getHeaders().containsKey(RELEASED_HEADER)) {
+            return;
+        }
+
+        SessionQueue queue = sessions.get(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        if (queue != null) {
+            queue.sending.set(false);
+            releaseNext(queue, channel);
+        }
+    }
+
+    /**
+     * Called once a frame has actually been written to the session's socket.
+     */
+    public void onWritten(String sessionId, WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage text) || !text.getPayload().startsWith("MESSAGE")) {
+            return;
+        }
+
+        SessionQueue queue = sessions.get(sessionId);
+        if (queue != null) {
+            queue.depth.updateAndGet(depth -> Math.max(0, depth - 1));
+            if (isControlFrame(text.getPayload())) {
+                queue.controlDepth.updateAndGet(depth -> Math.max(0, depth - 1));
+            }
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Integer> depths = new HashMap<>();
+        int maxControlQueueDepth = 0;
+        for (Map.Entry<String, SessionQueue> entry : sessions.entrySet()) {
+            depths.put(entry.getKey(), entry.getValue().depth.get());
+            maxControlQueueDepth = Math.max(maxControlQueueDepth, entry.getValue().controlDepth.get());
+        }
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("sessions", depths.size());
+        metrics.put("maxQueueDepth", depths.values().stream().mapToInt(Integer::intValue).max().orElse(0));
+        metrics.put("maxControlQueueDepth", maxControlQueueDepth);
+        metrics.put("queueDepths", depths);
+        metrics.put("droppedMessages", droppedMessages.get());
+        metrics.put("evictedSessions", evictedSessions.get());
+        return metrics;
+    }
+
+    private void releaseNext(SessionQueue queue, MessageChannel channel) {
+        while (queue.sending.compareAndSet(false, true)) {
+            Message<?> next = queue.poll();
+            if (next == null) {
+                queue.sending.set(false);
+                // A frame may have been queued between the poll and releasing the flag
+                if (queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+
+            try {
+                channel.send(MessageBuilder.fromMessage(next).setHeader(RELEASED_HEADER, true).build());
+                return;
+            } catch (Exception e) {
+                // The channel's own queue is full; this frame is lost, the session's next one is tried
+                queue.sending.set(false);
+                if (SimpMessageHeaderAccessor.getMessageType(next.getHeaders()) == SimpMessageType.MESSAGE) {
+                    queue.depth.updateAndGet(depth -> Math.max(0, depth - 1));
+                    if (priorityOf(next) == SignalPriority.CONTROL) {
+                        queue.controlDepth.updateAndGet(depth -> Math.max(0, depth - 1));
+                    }
+                }
+                droppedMessages.incrementAndGet();
+                logger.warn("Dropped outbound frame for session {}: {}", queue.session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Decides whether a MESSAGE frame may be queued for its session.
+     * Returns false if it should be discarded.
+     */
+    private boolean admit(SessionQueue queue, SignalPriority priority) {
+        if (priority == SignalPriority.TELEMETRY && queue.depth.get() >= droppableDepth) {
+            droppedMessages.incrementAndGet();
+            return false;
+        }
+
+        if (priority == SignalPriority.CONTROL) {
+            int controlDepth = queue.controlDepth.get();
+            if (controlDepth >= maxControlDepth) {
+                evict(queue, controlDepth);
+                return false;
+            }
+            queue.controlDepth.incrementAndGet();
+        }
+
+        queue.depth.incrementAndGet();
+        return true;
+    }
+
+    // Unlabelled frames count as control, except reactions
+    private SignalPriority priorityOf(Message<?> message) {
+        Map<String, List<String>> nativeHeaders = message.getHeaders()
+                .get(NativeMessageHeaderAccessor.NATIVE_HEADERS, Map.class);
+        if (nativeHeaders != null && nativeHeaders.containsKey(SignalPriority.HEADER)) {
+            return SignalPriority.valueOf(nativeHeaders.get(SignalPriority.HEADER).get(0));
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        return destination != null && destination.endsWith("/reactions") ? SignalPriority.TELEMETRY : SignalPriority.CONTROL;
+    }
+
+    // Reads the class back from the encoded STOMP frame's header block, as priorityOf would have
+    private boolean isControlFrame(String frame) {
+        int headersEnd = frame.indexOf("\n\n");
+        String headers = headersEnd >= 0 ? frame.substring(0, headersEnd + 1) : frame;
+        int header = headers.indexOf(PRIORITY_HEADER_LINE);
+        if (header >= 0) {
+            return headers.startsWith(SignalPriority.CONTROL.name(), header + PRIORITY_HEADER_LINE.length());
+        }
+        return !headers.contains("/reactions\n");
+    }
+
+    private void evict(SessionQueue queue, int depth) {
+        if (!queue.evicted.compareAndSet(false, true)) {
+            return;
+        }
+
+        evictedSessions.incrementAndGet();
+        logger.warn("Closing WebSocket session {}: {} control messages queued", queue.session.getId(), depth);
+        try {
+            queue.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            logger.warn("Failed to close lagging session {}: {}", queue.session.getId(), e.getMessage());
+        }
+    }
+
+    private static final class SessionQueue {
+        private final WebSocketSession session;
+        private final Map<SignalPriority, Queue<Message<?>>> pending = new EnumMap<>(SignalPriority.class);
+        // Set while one of the session's frames is in the channel
+        private final AtomicBoolean sending = new AtomicBoolean(false);
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicInteger controlDepth = new AtomicInteger();
+        private final AtomicBoolean evicted = new AtomicBoolean(false);
+
+        private SessionQueue(WebSocketSession session) {
+            this.session = session;
+            for (SignalPriority priority : SignalPriority.values()) {
+                pending.put(priority, new ConcurrentLinkedQueue<>());
+            }
+        }
+
+        private Message<?> poll() {
+            for (SignalPriority priority : SignalPriority.values()) {
+                Message<?> message = pending.get(priority).poll();
+                if (message != null) {
+                    return message;
+                }
+            }
+            return null;
+        }
+
+        private boolean isEmpty() {
+            for (Queue<Message<?>> queue : pending.values()) {
+                if (!queue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
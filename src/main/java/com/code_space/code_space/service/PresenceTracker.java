@@ -0,0 +1,170 @@
+package com.code_space.code_space.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks which signaling participants are still alive.
+ *
+ * Every join, explicit heartbeat or inbound STOMP frame (including STOMP heart-beats)
+ * pushes the participant's deadline out by the presence timeout on a {@link TimingWheel};
+ * {@link #advance()} returns whoever missed it. Participants are also indexed by the STOMP
+ * session they joined through so a disconnect can release them immediately.
+ *
+ * Touches arrive on every inbound frame, so presences are spread over several wheels by
+ * hash and each touch only locks its own stripe. The stripes are advanced together.
+ *
+ * Tracked participants are also indexed by room, which gives a cheap count of the members
+ * connected to this node.
+ */
+@Component
+public class PresenceTracker {
+
+    @Value("${webrtc.presence.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Value("${webrtc.presence.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${webrtc.presence.stripes:16}")
+    private int stripeCount;
+
+    private List<TimingWheel<Presence>> stripes;
+
+    private final Map<String, Set<Presence>> sessionPresences = new ConcurrentHashMap<>();
+    private final Map<Presence, String> presenceSessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> roomPresences = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        stripes = new ArrayList<>(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.add(new TimingWheel<>(tickMs, timeoutMs));
+        }
+    }
+
+    /**
+     * Starts tracking a participant; a later join through another session takes it over.
+     */
+    public void register(String sessionId, String roomId, String participantId) {
+        Presence presence = new Presence(roomId, participantId);
+        wheelOf(presence).schedule(presence, timeoutMs);
+        roomPresences.computeIfAbsent(roomId, k -> ConcurrentHashMap.newKeySet()).add(participantId);
+
+        if (sessionId != null) {
+            String previous = presenceSessions.put(presence, sessionId);
+            if (previous != null && !previous.equals(sessionId)) {
+                removeFromSession(previous, presence);
+            }
+            sessionPresences.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).add(presence);
+        }
+    }
+
+    /**
+     * Extends the participant's deadline. Returns false if it is not tracked.
+     */
+    public boolean touch(String roomId, String participantId) {
+        Presence presence = new Presence(roomId, participantId);
+        return wheelOf(presence).reschedule(presence, timeoutMs);
+    }
+
+    public void touchSession(String sessionId) {
+        Set<Presence> presences = sessionPresences.get(sessionId);
+        if (presences != null) {
+            presences.forEach(presence -> wheelOf(presence).reschedule(presence, timeoutMs));
+        }
+    }
+
+    public void unregister(String roomId, String participantId) {
+        Presence presence = new Presence(roomId, participantId);
+        wheelOf(presence).cancel(presence);
+        removeFromRoom(presence);
+        String sessionId = presenceSessions.remove(presence);
+        if (sessionId != null) {
+            removeFromSession(sessionId, presence);
+        }
+    }
+
+    /**
+     * Stops tracking everything that joined through the session and returns it.
+     */
+    public Set<Presence> unregisterSession(String sessionId) {
+        Set<Presence> presences = sessionPresences.remove(sessionId);
+        if (presences == null) {
+            return Set.of();
+        }
+
+        // Skip participants that have since rejoined through a newer session
+        Set<Presence> released = presences.stream()
+                .filter(presence -> presenceSessions.remove(presence, sessionId))
+                .collect(Collectors.toSet());
+        released.forEach(presence -> {
+            wheelOf(presence).cancel(presence);
+            removeFromRoom(presence);
+        });
+        return released;
+    }
+
+    /**
+     * Advances one tick and returns the participants whose deadline passed.
+     */
+    public List<Presence> advance() {
+        List<Presence> expired = new ArrayList<>();
+        for (TimingWheel<Presence> wheel : stripes) {
+            expired.addAll(wheel.advance());
+        }
+        for (Presence presence : expired) {
+            removeFromRoom(presence);
+            String sessionId = presenceSessions.remove(presence);
+            if (sessionId != null) {
+                removeFromSession(sessionId, presence);
+            }
+        }
+        return expired;
+    }
+
+    public int getTrackedCount() {
+        int tracked = 0;
+        for (TimingWheel<Presence> wheel : stripes) {
+            tracked += wheel.size();
+        }
+        return tracked;
+    }
+
+    /**
+     * Returns how many of the room's participants are connected to this node.
+     */
+    public int countInRoom(String roomId) {
+        Set<String> participants = roomPresences.get(roomId);
+        return participants != null ? participants.size() : 0;
+    }
+
+    private TimingWheel<Presence> wheelOf(Presence presence) {
+        return stripes.get(Math.floorMod(presence.hashCode(), stripes.size()));
+    }
+
+    private void removeFromSession(String sessionId, Presence presence) {
+        sessionPresences.computeIfPresent(sessionId, (k, presences) -> {
+            presences.remove(presence);
+            return presences.isEmpty() ? null : presences;
+        });
+    }
+
+    private void removeFromRoom(Presence presence) {
+        roomPresences.computeIfPresent(presence.roomId(), (k, participants) -> {
+            participants.remove(presence.participantId());
+            return participants.isEmpty() ? null : participants;
+        });
+    }
+
+    public record Presence(String roomId, String participantId) {
+    }
+}
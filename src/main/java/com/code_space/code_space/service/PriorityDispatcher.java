@@ -0,0 +1,215 @@
+package com.code_space.code_space.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands outbound sends to the broker in priority order, per room.
+ *
+ * Each room (or user, for personal notifications) gets its own outbound lane, drained one
+ * send at a time on a virtual thread like the {@link RoomSignalingExecutor} lanes, so rooms
+ * never queue behind each other and sends within a class keep their FIFO order. A lane always
+ * drains {@link SignalPriority#CONTROL} before {@link SignalPriority#NEGOTIATION}, and both
+ * before {@link SignalPriority#TELEMETRY}, so a host's "mute all" or "end meeting" waits
+ * behind at most one in-flight send of its own room however many ICE candidates a join storm
+ * has queued there. Past the broker, {@link OutboundQueueMonitor} keeps the same order per
+ * session, which is where a slow client's backlog builds up.
+ *
+ * Submitting never blocks. Under pressure telemetry is shed at submit time; negotiation is
+ * never dropped, and once a lane holds its capacity of negotiation sends further ones are
+ * queued past the limit and counted as overflows.
+ */
+@Component
+public class PriorityDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriorityDispatcher.class);
+
+    @Value("${webrtc.dispatch.negotiation-capacity:10000}")
+    private int negotiationCapacity;
+
+    @Value("${webrtc.dispatch.telemetry-capacity:1000}")
+    private int telemetryCapacity;
+
+    // Pending control + negotiation sends in a lane above which new telemetry is shed
+    @Value("${webrtc.dispatch.pressure-threshold:500}")
+    private int pressureThreshold;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, OutboundLane> lanes = new ConcurrentHashMap<>();
+
+    private final Map<SignalPriority, ClassMetrics> classMetrics = new EnumMap<>(SignalPriority.class);
+    private final AtomicLong shedTelemetry = new AtomicLong();
+    private final AtomicLong negotiationOverflows = new AtomicLong();
+
+    public PriorityDispatcher() {
+        for (SignalPriority priority : SignalPriority.values()) {
+            classMetrics.put(priority, new ClassMetrics());
+        }
+    }
+
+    /**
+     * Queues a send on the lane for {@code laneKey}, normally the room id.
+     */
+    public void submit(String laneKey, SignalPriority priority, Runnable send) {
+        if (priority == SignalPriority.TELEMETRY) {
+            OutboundLane existing = lanes.get(laneKey);
+            if (existing != null && (existing.size(SignalPriority.TELEMETRY) >= telemetryCapacity
+                    || existing.urgentSize() >= pressureThreshold)) {
+                shedTelemetry.incrementAndGet();
+                return;
+            }
+        }
+
+        // Enqueue inside compute() so a lane can never be retired while a send is being added to it,
+        // and so a negotiation permit is always taken from the lane that will run the send
+        lanes.compute(laneKey, (key, lane) -> {
+            OutboundLane target = lane != null ? lane : new OutboundLane(key);
+            boolean holdsPermit = false;
+            if (priority == SignalPriority.NEGOTIATION) {
+                holdsPermit = target.negotiationPermits.tryAcquire();
+                if (!holdsPermit) {
+                    // Full: queue past the limit rather than drop, reorder or wait
+                    negotiationOverflows.incrementAndGet();
+                }
+            }
+            target.enqueue(new Task(send, priority, System.nanoTime(), holdsPermit));
+            return target;
+        });
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        classMetrics.forEach((priority, counters) -> {
+            Map<String, Object> classEntry = new HashMap<>();
+            classEntry.put("pending", counters.pending.get());
+            classEntry.put("dispatched", counters.dispatched.get());
+            classEntry.put("maxLatencyMs", counters.maxLatencyNanos.get() / 1_000_000.0);
+            metrics.put(priority.name().toLowerCase(), classEntry);
+        });
+        metrics.put("activeLanes", lanes.size());
+        metrics.put("shedTelemetry", shedTelemetry.get());
+        metrics.put("negotiationOverflows", negotiationOverflows.get());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    private record Task(Runnable send, SignalPriority priority, long enqueuedAt, boolean holdsPermit) {
+    }
+
+    private static final class ClassMetrics {
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicLong dispatched = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+    }
+
+    private final class OutboundLane {
+        private final String key;
+        private final Map<SignalPriority, Queue<Task>> queues = new EnumMap<>(SignalPriority.class);
+        private final Map<SignalPriority, AtomicInteger> sizes = new EnumMap<>(SignalPriority.class);
+        // One permit per negotiation send the lane may hold; taken on submit, returned once sent.
+        // Sends queued past the limit hold none and return none
+        private final Semaphore negotiationPermits = new Semaphore(negotiationCapacity);
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        private OutboundLane(String key) {
+            this.key = key;
+            for (SignalPriority priority : SignalPriority.values()) {
+                queues.put(priority, new ConcurrentLinkedQueue<>());
+                sizes.put(priority, new AtomicInteger());
+            }
+        }
+
+        private int size(SignalPriority priority) {
+            return sizes.get(priority).get();
+        }
+
+        private int urgentSize() {
+            return size(SignalPriority.CONTROL) + size(SignalPriority.NEGOTIATION);
+        }
+
+        private void enqueue(Task task) {
+            sizes.get(task.priority()).incrementAndGet();
+            classMetrics.get(task.priority()).pending.incrementAndGet();
+            queues.get(task.priority()).add(task);
+            if (running.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private Task poll() {
+            for (SignalPriority priority : SignalPriority.values()) {
+                Task task = queues.get(priority).poll();
+                if (task != null) {
+                    sizes.get(priority).decrementAndGet();
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        private boolean isEmpty() {
+            for (Queue<Task> queue : queues.values()) {
+                if (!queue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void drain() {
+            while (true) {
+                Task task;
+                while ((task = poll()) != null) {
+                    run(task);
+                }
+
+                running.set(false);
+
+                // A send may have been added between the last poll and releasing the lane
+                if (isEmpty() || !running.compareAndSet(false, true)) {
+                    break;
+                }
+            }
+
+            lanes.computeIfPresent(key, (k, lane) ->
+                    lane == this && !running.get() && isEmpty() ? null : lane);
+        }
+
+        private void run(Task task) {
+            ClassMetrics counters = classMetrics.get(task.priority());
+            counters.pending.decrementAndGet();
+            counters.maxLatencyNanos.accumulateAndGet(System.nanoTime() - task.enqueuedAt(), Math::max);
+            try {
+                task.send().run();
+                counters.dispatched.incrementAndGet();
+            } catch (Exception e) {
+                logger.error("Outbound dispatch failed for {}: {}", key, e.getMessage(), e);
+            } finally {
+                if (task.holdsPermit()) {
+                    negotiationPermits.release();
+                }
+            }
+        }
+    }
+}
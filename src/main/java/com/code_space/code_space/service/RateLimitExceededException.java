@@ -0,0 +1,25 @@
+package com.code_space.code_space.service;
+
+/**
+ * Thrown when a client exceeds its chat or reaction rate; mapped to HTTP 429.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterMs;
+
+    public RateLimitExceededException(String message, long retryAfterMs) {
+        super(message);
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+    /**
+     * Whole seconds for the Retry-After header, never less than one.
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMs + 999) / 1000);
+    }
+}
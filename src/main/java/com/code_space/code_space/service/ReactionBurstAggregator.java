@@ -0,0 +1,147 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.dto.ReactionResponse;
+import com.code_space.code_space.entity.ParticipantStatus;
+import com.code_space.code_space.entity.ReactionType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides how reactions reach the room.
+ *
+ * Below the room's burst threshold every reaction goes out as its own {@code NEW_REACTION}.
+ * From the threshold on, the first reaction opens a window for the room and everything
+ * sent until it closes is folded into one {@code REACTION_BURST} with per-type counts and
+ * a capped sample of senders, so an applause moment costs one frame per participant per
+ * window instead of one per reaction.
+ */
+@Component
+public class ReactionBurstAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactionBurstAggregator.class);
+
+    @Autowired
+    private WebSocketNotificationService notificationService;
+
+    @Autowired
+    private RoomRosterCache rosterCache;
+
+    @Value("${app.reactions.burst.threshold:25}")
+    private int defaultThreshold;
+
+    @Value("${app.reactions.burst.window-ms:250}")
+    private int defaultWindowMs;
+
+    @Value("${app.reactions.burst.max-senders:10}")
+    private int maxSenders;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reaction-burst");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Long, Burst> openBursts = new ConcurrentHashMap<>();
+
+    private final AtomicLong reactionsSentIndividually = new AtomicLong();
+    private final AtomicLong reactionsAggregated = new AtomicLong();
+    private final AtomicLong burstsSent = new AtomicLong();
+
+    public void submit(RoomSnapshot room, ReactionResponse reaction) {
+        int threshold = room.reactionBurstThreshold() != null ? room.reactionBurstThreshold() : defaultThreshold;
+        if (countJoined(room.id()) < threshold) {
+            reactionsSentIndividually.incrementAndGet();
+            notificationService.sendReactionNotification(room.id(), reaction);
+            return;
+        }
+
+        int windowMs = room.reactionBurstWindowMs() != null ? room.reactionBurstWindowMs() : defaultWindowMs;
+        boolean[] opened = new boolean[1];
+        openBursts.compute(room.id(), (roomId, burst) -> {
+            if (burst == null) {
+                burst = new Burst(windowMs);
+                opened[0] = true;
+            }
+            burst.add(reaction, maxSenders);
+            return burst;
+        });
+        reactionsAggregated.incrementAndGet();
+
+        if (opened[0]) {
+            executor.schedule(() -> flush(room.id()), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("reactionsSentIndividually", reactionsSentIndividually.get());
+        metrics.put("reactionsAggregated", reactionsAggregated.get());
+        metrics.put("burstsSent", burstsSent.get());
+        metrics.put("openBursts", openBursts.size());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void flush(Long roomId) {
+        // Removed before reading, so no reaction can be added to it any more
+        Burst burst = openBursts.remove(roomId);
+        if (burst == null) {
+            return;
+        }
+
+        try {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            burst.counts.forEach((type, count) -> counts.put(type.getCode(), count));
+            notificationService.sendReactionBurstNotification(roomId, counts, burst.total, burst.senders, burst.windowMs);
+            burstsSent.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("Failed to send reaction burst for room {}: {}", roomId, e.getMessage(), e);
+        }
+    }
+
+    private long countJoined(Long roomId) {
+        return rosterCache.getRoster(roomId).stream()
+                .filter(entry -> entry.status() == ParticipantStatus.JOINED)
+                .count();
+    }
+
+    // Only touched inside openBursts.compute, then read once after removal
+    private static final class Burst {
+        private final int windowMs;
+        private final Map<ReactionType, Integer> counts = new EnumMap<>(ReactionType.class);
+        private final List<ReactionResponse> senders = new ArrayList<>();
+        private int total;
+
+        private Burst(int windowMs) {
+            this.windowMs = windowMs;
+        }
+
+        private void add(ReactionResponse reaction, int maxSenders) {
+            counts.merge(reaction.getReactionType(), 1, Integer::sum);
+            total++;
+            if (senders.size() < maxSenders) {
+                senders.add(reaction);
+            }
+        }
+    }
+}
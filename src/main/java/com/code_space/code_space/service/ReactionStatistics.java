@@ -0,0 +1,233 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.ReactionType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Pre-aggregated reaction statistics in {@code reaction_stat_buckets}.
+ *
+ * Sending a reaction only bumps an in-memory counter for its room, minute and type. A
+ * scheduled flush takes each counter out of the map atomically, rolls the minutes up into
+ * their hours as well and upserts both resolutions in one batch, adding to whatever the
+ * buckets already hold. Range queries read whole hours from the hour buckets and only the
+ * ragged edges from the minute buckets, so a long meeting costs a handful of rows per
+ * reaction type. Queries wait for a running flush to commit, so counts it has taken out
+ * of memory are never missing from the result.
+ *
+ * Minute buckets are pruned once older than {@code app.reactions.stats.minute-retention-hours};
+ * ranges reaching further back than that are counted to hour precision.
+ */
+@Component
+public class ReactionStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactionStatistics.class);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO reaction_stat_buckets (room_id, resolution, bucket_start, reaction_type, count) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (room_id, resolution, bucket_start, reaction_type) " +
+            "DO UPDATE SET count = reaction_stat_buckets.count + EXCLUDED.count";
+
+    private static final String SUM_SQL =
+            "SELECT reaction_type, SUM(count) AS total FROM reaction_stat_buckets WHERE room_id = ? AND " +
+            "resolution = ? AND bucket_start >= ? AND bucket_start < ? GROUP BY reaction_type";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.reactions.stats.minute-retention-hours:48}")
+    private long minuteRetentionHours;
+
+    // Merged under the map's bin lock so a flush can take a count without losing increments
+    private final Map<MinuteKey, Long> pending = new ConcurrentHashMap<>();
+
+    // Held for writing while a flush moves counts from memory to the database
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong bucketsUpserted = new AtomicLong();
+    private final AtomicLong minuteBucketsPruned = new AtomicLong();
+
+    public void record(Long roomId, ReactionType type) {
+        long minute = Resolution.MINUTE.floor(System.currentTimeMillis());
+        pending.merge(new MinuteKey(roomId, minute, type), 1L, Long::sum);
+    }
+
+    /**
+     * Reactions per type sent in the room between the two instants, to minute precision
+     * within the minute retention and to hour precision before it.
+     */
+    public Map<ReactionType, Long> getCounts(Long roomId, long fromMs, long toMs) {
+        long from = Resolution.MINUTE.floor(fromMs);
+        long to = Resolution.MINUTE.floor(toMs) + Resolution.MINUTE.millis; // through the current minute
+        Map<ReactionType, Long> counts = new EnumMap<>(ReactionType.class);
+
+        flushLock.readLock().lock();
+        try {
+            // Before the horizon only hour buckets are kept
+            long minuteFrom = from;
+            long horizon = minuteHorizon();
+            if (from < horizon) {
+                long oldEnd = Math.min(to, horizon);
+                sum(counts, roomId, Resolution.HOUR, Resolution.HOUR.floor(from), Resolution.HOUR.ceil(oldEnd));
+                minuteFrom = oldEnd;
+            }
+
+            long firstHour = Resolution.HOUR.ceil(minuteFrom);
+            long lastHour = Resolution.HOUR.floor(to);
+            if (firstHour < lastHour) {
+                sum(counts, roomId, Resolution.MINUTE, minuteFrom, firstHour);
+                sum(counts, roomId, Resolution.HOUR, firstHour, lastHour);
+                sum(counts, roomId, Resolution.MINUTE, lastHour, to);
+            } else {
+                sum(counts, roomId, Resolution.MINUTE, minuteFrom, to);
+            }
+
+            // Counted but not flushed yet
+            pending.forEach((key, count) -> {
+                if (key.roomId().equals(roomId) && key.minuteStartMs() >= from && key.minuteStartMs() < to) {
+                    counts.merge(key.type(), count, Long::sum);
+                }
+            });
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reactions.stats.flush-interval-ms:5000}")
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes minute buckets older than the retention; their hour buckets stay.
+     */
+    @Scheduled(fixedDelayString = "${app.reactions.stats.prune-interval-ms:3600000}")
+    public void pruneMinuteBuckets() {
+        try {
+            int pruned = jdbcTemplate.update(
+                    "DELETE FROM reaction_stat_buckets WHERE resolution = ? AND bucket_start < ?",
+                    Resolution.MINUTE.name(), new Timestamp(minuteHorizon()));
+            minuteBucketsPruned.addAndGet(pruned);
+        } catch (Exception e) {
+            logger.warn("Failed to prune reaction minute buckets: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("pendingBuckets", pending.size());
+        metrics.put("flushes", flushes.get());
+        metrics.put("bucketsUpserted", bucketsUpserted.get());
+        metrics.put("minuteBucketsPruned", minuteBucketsPruned.get());
+        return metrics;
+    }
+
+    private void flushLocked() {
+        // Taken out atomically; an increment racing the take lands in a fresh entry
+        Map<MinuteKey, Long> deltas = new HashMap<>();
+        for (MinuteKey key : pending.keySet()) {
+            Long delta = pending.remove(key);
+            if (delta != null) {
+                deltas.put(key, delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // Roll minutes up into hours so both resolutions are written in the same batch
+        Map<Bucket, Long> buckets = new HashMap<>();
+        deltas.forEach((key, delta) -> {
+            buckets.merge(new Bucket(key.roomId(), Resolution.MINUTE, key.minuteStartMs(), key.type()), delta, Long::sum);
+            buckets.merge(new Bucket(key.roomId(), Resolution.HOUR,
+                    Resolution.HOUR.floor(key.minuteStartMs()), key.type()), delta, Long::sum);
+        });
+
+        List<Object[]> rows = new ArrayList<>(buckets.size());
+        buckets.forEach((bucket, count) -> rows.add(new Object[]{
+                bucket.roomId(), bucket.resolution().name(), new Timestamp(bucket.startMs()), bucket.type().name(), count
+        }));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+            flushes.incrementAndGet();
+            bucketsUpserted.addAndGet(rows.size());
+        } catch (Exception e) {
+            // Put the deltas back so the next flush retries them
+            deltas.forEach((key, delta) -> pending.merge(key, delta, Long::sum));
+            logger.error("Failed to flush {} reaction stat buckets: {}", rows.size(), e.getMessage(), e);
+        }
+    }
+
+    private long minuteHorizon() {
+        return Resolution.HOUR.floor(System.currentTimeMillis() - minuteRetentionHours * Resolution.HOUR.millis);
+    }
+
+    private void sum(Map<ReactionType, Long> counts, Long roomId, Resolution resolution, long fromMs, long toMs) {
+        if (fromMs >= toMs) {
+            return;
+        }
+        jdbcTemplate.query(SUM_SQL, rs -> {
+            counts.merge(ReactionType.valueOf(rs.getString("reaction_type")), rs.getLong("total"), Long::sum);
+        }, roomId, resolution.name(), new Timestamp(fromMs), new Timestamp(toMs));
+    }
+
+    private enum Resolution {
+        MINUTE(60_000L),
+        HOUR(3_600_000L);
+
+        private final long millis;
+
+        Resolution(long millis) {
+            this.millis = millis;
+        }
+
+        long floor(long epochMs) {
+            return epochMs - Math.floorMod(epochMs, millis);
+        }
+
+        long ceil(long epochMs) {
+            long floor = floor(epochMs);
+            return floor == epochMs ? floor : floor + millis;
+        }
+    }
+
+    private record MinuteKey(Long roomId, long minuteStartMs, ReactionType type) {
+    }
+
+    private record Bucket(Long roomId, Resolution resolution, long startMs, ReactionType type) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.ReactionType;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Active meeting reactions, held in memory only.
+ *
+ * Each room maps a user to their single current reaction, so sending a new one replaces
+ * the old in O(1). Expiry runs on a {@link TimingWheel}: a replaced reaction just moves
+ * its user's deadline, and each tick only touches the reactions that are due.
+ */
+@Component
+public class ReactionStore {
+
+    @Value("${app.reactions.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${app.reactions.tick-ms:100}")
+    private long tickMs;
+
+    private TimingWheel<ReactionKey> wheel;
+
+    private final Map<Long, Map<Long, ActiveReaction>> rooms = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+
+    private final AtomicLong reactionsAdded = new AtomicLong();
+    private final AtomicLong reactionsReplaced = new AtomicLong();
+    private final AtomicLong reactionsExpired = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMs, ttlMs);
+    }
+
+    public ActiveReaction create(Long userId, String senderName, String senderEmail, ReactionType type) {
+        long now = System.currentTimeMillis();
+        return new ActiveReaction(nextId.incrementAndGet(), userId, senderName, senderEmail, type, now, now + ttlMs);
+    }
+
+    /**
+     * Makes the reaction its sender's current one in the room. Returns the reaction it
+     * replaced, or null if the sender had none.
+     */
+    public ActiveReaction put(Long roomId, ActiveReaction reaction) {
+        ActiveReaction[] previous = new ActiveReaction[1];
+        rooms.compute(roomId, (key, reactions) -> {
+            if (reactions == null) {
+                reactions = new ConcurrentHashMap<>();
+            }
+            previous[0] = reactions.put(reaction.userId(), reaction);
+            return reactions;
+        });
+        wheel.schedule(new ReactionKey(roomId, reaction.userId()), ttlMs);
+
+        reactionsAdded.incrementAndGet();
+        if (previous[0] != null) {
+            reactionsReplaced.incrementAndGet();
+        }
+        return previous[0];
+    }
+
+    /**
+     * Reactions still showing in the room, newest first.
+     */
+    public List<ActiveReaction> getActive(Long roomId) {
+        Map<Long, ActiveReaction> reactions = rooms.get(roomId);
+        if (reactions == null) {
+            return List.of();
+        }
+
+        long now = System.currentTimeMillis();
+        return reactions.values().stream()
+                .filter(reaction -> reaction.expiresAtMs() > now)
+                .sorted(Comparator.comparingLong(ActiveReaction::createdAtMs).reversed())
+                .toList();
+    }
+
+    public void evict(Long roomId) {
+        rooms.remove(roomId);
+    }
+
+    @Scheduled(fixedRateString = "${app.reactions.tick-ms:100}")
+    public void expire() {
+        List<ReactionKey> due = wheel.advance();
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // A reaction sent right after its key came due is newer than the deadline; keep it
+        long cutoff = System.currentTimeMillis() + tickMs;
+        for (ReactionKey key : due) {
+            rooms.computeIfPresent(key.roomId(), (roomId, reactions) -> {
+                ActiveReaction reaction = reactions.get(key.userId());
+                if (reaction != null && reaction.expiresAtMs() <= cutoff) {
+                    reactions.remove(key.userId());
+                    reactionsExpired.incrementAndGet();
+                }
+                return reactions.isEmpty() ? null : reactions;
+            });
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("activeReactions", wheel.size());
+        metrics.put("activeRooms", rooms.size());
+        metrics.put("reactionsAdded", reactionsAdded.get());
+        metrics.put("reactionsReplaced", reactionsReplaced.get());
+        metrics.put("reactionsExpired", reactionsExpired.get());
+        return metrics;
+    }
+
+    public record ActiveReaction(long id, Long userId, String senderName, String senderEmail,
+                                 ReactionType type, long createdAtMs, long expiresAtMs) {
+    }
+
+    private record ReactionKey(Long roomId, Long userId) {
+    }
+}
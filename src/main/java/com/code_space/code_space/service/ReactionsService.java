@@ -8,11 +8,12 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,28 +30,37 @@ public class ReactionsService {
     private UserService userService;
 
     @Autowired
-    private WebSocketNotificationService notificationService;
+    private ReactionStore reactionStore;
 
+    @Autowired
+    private RoomCounters roomCounters;
+
+    @Autowired
+    private ReactionBurstAggregator burstAggregator;
+
+    @Autowired
+    private ReactionStatistics reactionStatistics;
+
+    @Transactional(readOnly = true)
     public List<ReactionResponse> getActiveReactions(Long roomId, String userEmail) {
         if (!roomService.isUserInRoom(roomId, userEmail)) {
             throw new RuntimeException("Access denied to room reactions");
         }
 
-        Room room = roomService.getRoomEntityById(roomId);
-        LocalDateTime now = LocalDateTime.now();
-
-        return reactionRepository.findByRoomAndExpiresAtAfterOrderByCreatedAtDesc(room, now)
+        return reactionStore.getActive(roomId)
                 .stream()
-                .map(ReactionResponse::new)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
+    // Reactions only live in memory; the room's reaction total is counted by RoomCounters
+    @Transactional(readOnly = true)
     public ReactionResponse sendReaction(Long roomId, String userEmail, ReactionRequest request) {
         if (!roomService.isUserInRoom(roomId, userEmail)) {
             throw new RuntimeException("Access denied to room reactions");
         }
 
-        Room room = roomService.getRoomEntityById(roomId);
+        RoomSnapshot room = roomService.getRoomSnapshot(roomId);
         User user = userService.findByEmail(userEmail);
 
         // Parse reaction type
@@ -61,42 +71,20 @@ public class ReactionsService {
             throw new RuntimeException("Invalid reaction type: " + request.getReactionType());
         }
 
-        // Check if user already has an active reaction
-        LocalDateTime now = LocalDateTime.now();
-        Optional<MeetingReaction> existingReaction = reactionRepository
-                .findByRoomAndUserAndExpiresAtAfter(room, user, now);
-
-        if (existingReaction.isPresent()) {
-            // Update existing reaction
-            MeetingReaction reaction = existingReaction.get();
-            reaction.setReactionType(reactionType);
-            reaction.setCreatedAt(LocalDateTime.now());
-            reaction.setExpiresAt(LocalDateTime.now().plusSeconds(5));
-            reaction = reactionRepository.save(reaction);
-
-            // Send WebSocket notification
-            ReactionResponse response = new ReactionResponse(reaction);
-            notificationService.sendReactionNotification(room, response);
-
-            return response;
-        } else {
-            // Create new reaction
-            MeetingReaction reaction = new MeetingReaction(room, user, reactionType);
-            reaction = reactionRepository.save(reaction);
-
-            // Update room statistics
-            room.incrementReactionCount();
-            roomService.updateRoomEntity(room);
-
-            // Update participant statistics
-            // Note: This would require updating RoomParticipant to include the incrementReactionCount method
-
-            // Send WebSocket notification
-            ReactionResponse response = new ReactionResponse(reaction);
-            notificationService.sendReactionNotification(room, response);
-
-            return response;
+        ReactionStore.ActiveReaction reaction = reactionStore.create(
+                user.getId(), user.getFirstName() + " " + user.getLastName(), user.getEmail(), reactionType);
+
+        // Replacing the user's current reaction does not count as a new one
+        if (reactionStore.put(roomId, reaction) == null) {
+            roomCounters.incrementReactionsSent(roomId);
         }
+        reactionStatistics.record(roomId, reactionType);
+
+        // Send WebSocket notification, folded into a burst in large rooms
+        ReactionResponse response = toResponse(reaction);
+        burstAggregator.submit(room, response);
+
+        return response;
     }
 
     public Map<String, Object> getReactionStatistics(Long roomId, String userEmail, int hours) {
@@ -104,19 +92,19 @@ public class ReactionsService {
             throw new RuntimeException("Access denied to room reactions");
         }
 
-        Room room = roomService.getRoomEntityById(roomId);
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
+        if (hours < 1) {
+            throw new RuntimeException("Hours must be at least 1");
+        }
 
-        List<Object[]> rawStats = reactionRepository.getReactionStatistics(room, since);
+        long now = System.currentTimeMillis();
+        Map<ReactionType, Long> counts = reactionStatistics.getCounts(roomId, now - hours * 3_600_000L, now);
 
         Map<String, Long> reactionCounts = new HashMap<>();
         long totalReactions = 0;
 
-        for (Object[] stat : rawStats) {
-            ReactionType type = (ReactionType) stat[0];
-            Long count = (Long) stat[1];
-            reactionCounts.put(type.getCode(), count);
-            totalReactions += count;
+        for (Map.Entry<ReactionType, Long> count : counts.entrySet()) {
+            reactionCounts.put(count.getKey().getCode(), count.getValue());
+            totalReactions += count.getValue();
         }
 
         Map<String, Object> result = new HashMap<>();
@@ -129,10 +117,29 @@ public class ReactionsService {
     }
 
     // Scheduled task to clean up expired reactions (runs every minute)
+    // New reactions are no longer written here; this only drains rows left from before
     @Scheduled(fixedRate = 60000)
     @Transactional
     public void cleanupExpiredReactions() {
         LocalDateTime now = LocalDateTime.now();
         reactionRepository.deleteExpiredReactions(now);
     }
+
+    private ReactionResponse toResponse(ReactionStore.ActiveReaction reaction) {
+        ReactionResponse response = new ReactionResponse();
+        response.setId(reaction.id());
+        response.setSenderName(reaction.senderName());
+        response.setSenderEmail(reaction.senderEmail());
+        response.setReactionType(reaction.type());
+        response.setEmoji(reaction.type().getEmoji());
+        response.setGuest(false);
+        response.setCreatedAt(toLocalDateTime(reaction.createdAtMs()));
+        response.setExpiresAt(toLocalDateTime(reaction.expiresAtMs()));
+        response.setRemainingTimeMs(Math.max(0, reaction.expiresAtMs() - System.currentTimeMillis()));
+        return response;
+    }
+
+    private LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
 }
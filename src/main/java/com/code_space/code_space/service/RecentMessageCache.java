@@ -0,0 +1,130 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.dto.ChatMessageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The last N chat messages of each active room, newest first, as ready-to-serve responses.
+ *
+ * A room's buffer is loaded from the database on first read and then kept current by
+ * {@link ChatService}: new messages are pushed, edits and deletes are patched in place.
+ * Changes are applied once their transaction commits, so a rolled-back message never
+ * shows up. Buffers are dropped when the room ends.
+ */
+@Component
+public class RecentMessageCache {
+
+    @Value("${chat.recent.buffer-size:50}")
+    private int bufferSize;
+
+    private final Map<Long, RecentMessages> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the room's recent messages, newest first, loading them with {@code loader} if
+     * the room is not resident. The loader must return messages newest first.
+     */
+    public List<ChatMessageResponse> getRecent(Long roomId, Supplier<List<ChatMessageResponse>> loader) {
+        return buffers.computeIfAbsent(roomId, key -> new RecentMessages(bufferSize, loader.get())).snapshot();
+    }
+
+    public void onMessageSent(Long roomId, ChatMessageResponse message) {
+        afterCommit(() -> buffers.computeIfPresent(roomId, (key, buffer) -> {
+            buffer.push(message);
+            return buffer;
+        }));
+    }
+
+    public void onMessageEdited(Long roomId, ChatMessageResponse message) {
+        afterCommit(() -> buffers.computeIfPresent(roomId, (key, buffer) -> {
+            buffer.replace(message);
+            return buffer;
+        }));
+    }
+
+    public void onMessageDeleted(Long roomId, Long messageId) {
+        afterCommit(() -> buffers.computeIfPresent(roomId, (key, buffer) -> {
+            buffer.remove(messageId);
+            return buffer;
+        }));
+    }
+
+    public void evict(Long roomId) {
+        afterCommit(() -> buffers.remove(roomId));
+    }
+
+    public int getResidentRoomCount() {
+        return buffers.size();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class RecentMessages {
+        private final int capacity;
+        private final Deque<ChatMessageResponse> messages;
+
+        private RecentMessages(int capacity, List<ChatMessageResponse> newestFirst) {
+            this.capacity = capacity;
+            this.messages = new ArrayDeque<>(capacity);
+            for (ChatMessageResponse message : newestFirst) {
+                if (messages.size() == capacity) {
+                    break;
+                }
+                messages.addLast(message);
+            }
+        }
+
+        private synchronized List<ChatMessageResponse> snapshot() {
+            return new ArrayList<>(messages);
+        }
+
+        private synchronized void push(ChatMessageResponse message) {
+            // The initial load may already have picked the message up
+            if (messages.stream().anyMatch(existing -> existing.getId().equals(message.getId()))) {
+                return;
+            }
+            if (messages.size() == capacity) {
+                messages.removeLast();
+            }
+            messages.addFirst(message);
+        }
+
+        private synchronized void replace(ChatMessageResponse edited) {
+            List<ChatMessageResponse> patched = new ArrayList<>(messages.size());
+            for (ChatMessageResponse message : messages) {
+                if (message.getId().equals(edited.getId())) {
+                    patched.add(edited);
+                } else {
+                    patched.add(message);
+                }
+            }
+            messages.clear();
+            messages.addAll(patched);
+        }
+
+        private synchronized void remove(Long messageId) {
+            messages.removeIf(message -> message.getId().equals(messageId));
+        }
+    }
+}
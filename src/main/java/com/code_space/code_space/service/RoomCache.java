@@ -0,0 +1,227 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.Room;
+import com.code_space.code_space.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of {@link RoomSnapshot}s by id, room code and invitation link.
+ *
+ * {@link RoomService} invalidates a room on every change it makes, on this node
+ * immediately. Changes made elsewhere (another node, or a write that bypassed the service)
+ * are caught by version checks: once a snapshot is older than {@code revalidate-after-ms}
+ * the next read compares its {@code updated_at} with the row's and reloads if they differ,
+ * so a stale snapshot is served for at most that long. Snapshots are reloaded outright after
+ * {@code max-age-ms} to pick up host profile changes, and the least recently used rooms are
+ * dropped once the cache holds {@code max-size} of them.
+ */
+@Component
+public class RoomCache {
+
+    private static final String VERSION_SQL = "SELECT updated_at FROM rooms WHERE id = ?";
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.rooms.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.rooms.cache.revalidate-after-ms:1000}")
+    private long revalidateAfterMs;
+
+    @Value("${app.rooms.cache.max-age-ms:300000}")
+    private long maxAgeMs;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByCode = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByInvitationLink = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong staleReloads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RoomSnapshot get(Long roomId) {
+        Entry entry = entries.get(roomId);
+        if (entry != null && isFresh(entry)) {
+            hits.incrementAndGet();
+            entry.lastAccess = System.currentTimeMillis();
+            return entry.snapshot;
+        }
+
+        misses.incrementAndGet();
+        return put(roomRepository.findWithHostById(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found")));
+    }
+
+    public RoomSnapshot getByCode(String roomCode) {
+        RoomSnapshot cached = getIndexed(idsByCode.get(roomCode));
+        if (cached != null && cached.roomCode().equals(roomCode)) {
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        return put(roomRepository.findWithHostByRoomCode(roomCode)
+                .orElseThrow(() -> new RuntimeException("Room not found")));
+    }
+
+    public RoomSnapshot getByInvitationLink(String invitationLink) {
+        RoomSnapshot cached = getIndexed(idsByInvitationLink.get(invitationLink));
+        if (cached != null && invitationLink.equals(cached.invitationLink())) {
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        return put(roomRepository.findWithHostByInvitationLink(invitationLink)
+                .orElseThrow(() -> new RuntimeException("Invalid invitation link")));
+    }
+
+    /**
+     * Drops the room now and again once the surrounding transaction completes, so a
+     * snapshot loaded from uncommitted or rolled-back state does not outlive it.
+     */
+    public void invalidate(Long roomId) {
+        remove(roomId);
+        invalidations.incrementAndGet();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                remove(roomId);
+            }
+        });
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("size", entries.size());
+        metrics.put("hits", hitCount);
+        metrics.put("misses", misses.get());
+        metrics.put("hitRatio", lookups > 0 ? (double) hitCount / lookups : 0.0);
+        metrics.put("revalidations", revalidations.get());
+        metrics.put("staleReloads", staleReloads.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("evictions", evictions.get());
+        return metrics;
+    }
+
+    private RoomSnapshot getIndexed(Long roomId) {
+        if (roomId == null) {
+            return null;
+        }
+        Entry entry = entries.get(roomId);
+        if (entry == null || !isFresh(entry)) {
+            return null;
+        }
+        hits.incrementAndGet();
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.snapshot;
+    }
+
+    private boolean isFresh(Entry entry) {
+        long now = System.currentTimeMillis();
+        if (now - entry.loadedAt > maxAgeMs) {
+            return false;
+        }
+        if (now - entry.verifiedAt <= revalidateAfterMs) {
+            return true;
+        }
+
+        revalidations.incrementAndGet();
+        List<Timestamp> versions = jdbcTemplate.queryForList(VERSION_SQL, Timestamp.class, entry.snapshot.id());
+        if (versions.isEmpty() || !Objects.equals(toMicros(versions.get(0)), toMicros(entry.snapshot.updatedAt()))) {
+            staleReloads.incrementAndGet();
+            remove(entry.snapshot.id());
+            return false;
+        }
+        entry.verifiedAt = now;
+        return true;
+    }
+
+    // The column keeps microseconds; a snapshot taken from a just-saved entity may carry nanos
+    private static LocalDateTime toMicros(Timestamp timestamp) {
+        return timestamp != null ? toMicros(timestamp.toLocalDateTime()) : null;
+    }
+
+    private static LocalDateTime toMicros(LocalDateTime time) {
+        return time != null ? time.truncatedTo(ChronoUnit.MICROS) : null;
+    }
+
+    private RoomSnapshot put(Room room) {
+        RoomSnapshot snapshot = RoomSnapshot.of(room);
+        entries.put(snapshot.id(), new Entry(snapshot, System.currentTimeMillis()));
+        idsByCode.put(snapshot.roomCode(), snapshot.id());
+        if (snapshot.invitationLink() != null) {
+            idsByInvitationLink.put(snapshot.invitationLink(), snapshot.id());
+        }
+
+        if (entries.size() > maxSize) {
+            evictLeastRecentlyUsed();
+        }
+        return snapshot;
+    }
+
+    private void remove(Long roomId) {
+        Entry entry = entries.remove(roomId);
+        if (entry != null) {
+            idsByCode.remove(entry.snapshot.roomCode(), roomId);
+            if (entry.snapshot.invitationLink() != null) {
+                idsByInvitationLink.remove(entry.snapshot.invitationLink(), roomId);
+            }
+        }
+    }
+
+    // Drops the oldest tenth in one pass so the scan is paid once per many inserts
+    private synchronized void evictLeastRecentlyUsed() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        List<Map.Entry<Long, Entry>> byAccess = new ArrayList<>(entries.entrySet());
+        byAccess.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        int toEvict = Math.max(1, entries.size() - maxSize + maxSize / 10);
+        for (int i = 0; i < toEvict && i < byAccess.size(); i++) {
+            remove(byAccess.get(i).getKey());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static final class Entry {
+        private final RoomSnapshot snapshot;
+        private final long loadedAt;
+        private volatile long verifiedAt;
+        private volatile long lastAccess;
+
+        private Entry(RoomSnapshot snapshot, long now) {
+            this.snapshot = snapshot;
+            this.loadedAt = now;
+            this.verifiedAt = now;
+            this.lastAccess = now;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.repository.RoomRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory room statistics counters.
+ *
+ * Hot paths merge into a per-room count instead of updating the room row, so concurrent
+ * senders never queue on the {@code rooms} row lock. A scheduled flush takes each room's
+ * count out of the map atomically and applies it with one relative UPDATE; an increment
+ * racing the take lands in a fresh entry. Reads made through {@link #readConsistently}
+ * wait for a running flush to commit, so a count is never missing from both the room
+ * row and memory.
+ */
+@Component
+public class RoomCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomCounters.class);
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    // Merged under the map's bin lock so a flush can take a count without losing increments
+    private final Map<Long, Long> messagesSent = new ConcurrentHashMap<>();
+    private final Map<Long, Long> reactionsSent = new ConcurrentHashMap<>();
+
+    // Held for writing while a flush moves counts from memory to the room rows
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    public void incrementMessagesSent(Long roomId) {
+        messagesSent.merge(roomId, 1L, Long::sum);
+    }
+
+    public void incrementReactionsSent(Long roomId) {
+        reactionsSent.merge(roomId, 1L, Long::sum);
+    }
+
+    /**
+     * Messages counted but not yet flushed to the room row.
+     */
+    public long getPendingMessagesSent(Long roomId) {
+        return readConsistently(() -> messagesSent.getOrDefault(roomId, 0L));
+    }
+
+    /**
+     * Reactions counted but not yet flushed to the room row.
+     */
+    public long getPendingReactionsSent(Long roomId) {
+        return readConsistently(() -> reactionsSent.getOrDefault(roomId, 0L));
+    }
+
+    /**
+     * Runs a read of the room row together with the pending counts while no flush is
+     * committing, so each count is seen either in the row or in memory.
+     */
+    public <T> T readConsistently(Supplier<T> read) {
+        flushLock.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.counters.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            flush("message", messagesSent, roomRepository::addMessagesSent);
+            flush("reaction", reactionsSent, roomRepository::addReactionsSent);
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void flush(String counter, Map<Long, Long> counters, BiConsumer<Long, Long> apply) {
+        // Taken out atomically; idle rooms simply have no entry
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Long roomId : counters.keySet()) {
+            Long delta = counters.remove(roomId);
+            if (delta != null) {
+                deltas.put(roomId, delta);
+            }
+        }
+
+        deltas.forEach((roomId, delta) -> {
+            try {
+                apply.accept(roomId, delta);
+            } catch (Exception e) {
+                // Put the delta back so the next flush retries it
+                counters.merge(roomId, delta, Long::sum);
+                logger.error("Failed to flush {} count for room {}: {}", counter, roomId, e.getMessage(), e);
+            }
+        });
+    }
+}
@@ -33,6 +33,12 @@ public class RoomParticipantService {
     @Autowired
     private WebSocketNotificationService notificationService;
 
+    @Autowired
+    private RoomRosterCache rosterCache;
+
+    @Autowired
+    private ActiveParticipantCounter participantCounter;
+
     public RoomParticipant addHostToRoom(Room room, User host) {
         // Check if host is already added
         if (participantRepository.existsByRoomAndUser(room, host)) {
@@ -42,8 +48,9 @@ public class RoomParticipantService {
         RoomParticipant participant = new RoomParticipant(room, host, ParticipantRole.HOST);
         participant.setStatus(ParticipantStatus.JOINED);
         participant.setJoinedAt(LocalDateTime.now());
+        participantCounter.addHost(room);
 
-        return participantRepository.save(participant);
+        return saveParticipant(participant);
     }
 
     public RoomParticipant addParticipantToRoom(Room room, User user, ParticipantRole role) {
@@ -53,16 +60,18 @@ public class RoomParticipantService {
 
             // If user left, allow them to rejoin
             if (existingParticipant.getStatus() == ParticipantStatus.LEFT) {
+                claimSeat(room, existingParticipant.getRole());
                 existingParticipant.setStatus(ParticipantStatus.JOINED);
                 existingParticipant.setJoinedAt(LocalDateTime.now());
                 existingParticipant.setLeftAt(null);
-                return participantRepository.save(existingParticipant);
+                return saveParticipant(existingParticipant);
             }
 
             return existingParticipant;
         }
 
         RoomParticipant participant = new RoomParticipant(room, user, role);
+        claimSeat(room, role);
 
         // Set status based on room settings
         if (room.getWaitingRoomEnabled() && role != ParticipantRole.HOST) {
@@ -72,7 +81,7 @@ public class RoomParticipantService {
             participant.setJoinedAt(LocalDateTime.now());
         }
 
-        return participantRepository.save(participant);
+        return saveParticipant(participant);
     }
 
     public RoomParticipant addGuestToRoom(Room room, String guestName, String guestEmail) {
@@ -82,6 +91,7 @@ public class RoomParticipantService {
         }
 
         RoomParticipant participant = new RoomParticipant(room, guestName, guestEmail);
+        participantCounter.claimSeat(room);
 
         // Set status based on room settings
         if (room.getWaitingRoomEnabled()) {
@@ -91,7 +101,7 @@ public class RoomParticipantService {
             participant.setJoinedAt(LocalDateTime.now());
         }
 
-        return participantRepository.save(participant);
+        return saveParticipant(participant);
     }
 
     public RoomParticipant inviteParticipant(Room room, String email, ParticipantRole role) {
@@ -101,7 +111,7 @@ public class RoomParticipantService {
             // Registered user
             RoomParticipant participant = new RoomParticipant(room, user, role);
             participant.setStatus(ParticipantStatus.INVITED);
-            participant = participantRepository.save(participant);
+            participant = saveParticipant(participant);
 
             // Send email invitation
             emailService.sendMeetingInvitation(user.getEmail(), room);
@@ -112,7 +122,7 @@ public class RoomParticipantService {
             RoomParticipant participant = new RoomParticipant(room, null, email);
             participant.setRole(ParticipantRole.GUEST);
             participant.setStatus(ParticipantStatus.INVITED);
-            participant = participantRepository.save(participant);
+            participant = saveParticipant(participant);
 
             // Send email invitation to guest
             emailService.sendGuestMeetingInvitation(email, room);
@@ -139,7 +149,7 @@ public class RoomParticipantService {
 
         participant.setStatus(ParticipantStatus.JOINED);
         participant.setJoinedAt(LocalDateTime.now());
-        participant = participantRepository.save(participant);
+        participant = saveParticipant(participant);
 
         return new ParticipantResponse(participant);
     }
@@ -161,9 +171,12 @@ public class RoomParticipantService {
             throw new RuntimeException("Cannot remove the host");
         }
 
+        if (isActive(participant)) {
+            participantCounter.release(room, 1);
+        }
         participant.setStatus(ParticipantStatus.REMOVED);
         participant.setLeftAt(LocalDateTime.now());
-        participantRepository.save(participant);
+        saveParticipant(participant);
     }
 
     public ParticipantResponse changeParticipantRole(Long participantId, ParticipantRole newRole, String hostEmail) {
@@ -184,7 +197,10 @@ public class RoomParticipantService {
         }
 
         participant.setRole(newRole);
-        participant = participantRepository.save(participant);
+        participant = saveParticipant(participant);
+
+        // Role decides who gets host-only notifications, so reload rather than patch
+        rosterCache.invalidate(room.getId());
 
         return new ParticipantResponse(participant);
     }
@@ -202,7 +218,7 @@ public class RoomParticipantService {
         }
 
         participant.setIsMuted(muted);
-        participant = participantRepository.save(participant);
+        participant = saveParticipant(participant);
 
         return new ParticipantResponse(participant);
     }
@@ -222,7 +238,7 @@ public class RoomParticipantService {
         }
 
         participant.setIsCameraOn(cameraOn);
-        participant = participantRepository.save(participant);
+        participant = saveParticipant(participant);
 
         return new ParticipantResponse(participant);
     }
@@ -250,12 +266,12 @@ public class RoomParticipantService {
 
             for (RoomParticipant sharer : sharers) {
                 sharer.setIsSharingScreen(false);
-                participantRepository.save(sharer);
+                saveParticipant(sharer);
             }
         }
 
         participant.setIsSharingScreen(isSharing);
-        participant = participantRepository.save(participant);
+        participant = saveParticipant(participant);
 
         return new ParticipantResponse(participant);
     }
@@ -273,10 +289,13 @@ public class RoomParticipantService {
             }
         }
 
+        if (isActive(participant)) {
+            participantCounter.release(participant.getRoom(), 1);
+        }
         participant.setStatus(ParticipantStatus.LEFT);
         participant.setLeftAt(LocalDateTime.now());
         participant.setIsSharingScreen(false);
-        participantRepository.save(participant);
+        saveParticipant(participant);
 
         // If host leaves, end the meeting
         if (participant.getRole() == ParticipantRole.HOST) {
@@ -287,18 +306,32 @@ public class RoomParticipantService {
     public void endMeetingForAllParticipants(Room room) {
         List<RoomParticipant> activeParticipants = participantRepository.findByRoom(room)
                 .stream()
-                .filter(p -> p.getStatus() == ParticipantStatus.JOINED || p.getStatus() == ParticipantStatus.WAITING)
+                .filter(this::isActive)
                 .collect(Collectors.toList());
+        participantCounter.release(room, activeParticipants.size());
 
         for (RoomParticipant participant : activeParticipants) {
             participant.setStatus(ParticipantStatus.LEFT);
             participant.setLeftAt(LocalDateTime.now());
             participant.setIsSharingScreen(false);
-            participantRepository.save(participant);
+            saveParticipant(participant);
         }
     }
 
     // Helper methods
+    private void claimSeat(Room room, ParticipantRole role) {
+        if (role == ParticipantRole.HOST) {
+            participantCounter.addHost(room);
+        } else {
+            participantCounter.claimSeat(room);
+        }
+    }
+
+    // Participants counted in rooms.active_participant_count
+    private boolean isActive(RoomParticipant participant) {
+        return participant.getStatus() == ParticipantStatus.JOINED || participant.getStatus() == ParticipantStatus.WAITING;
+    }
+
     private boolean isCoHost(Room room, User user) {
         return participantRepository.findByRoomAndUser(room, user)
                 .map(p -> p.getRole() == ParticipantRole.CO_HOST)
@@ -366,7 +399,7 @@ public class RoomParticipantService {
             notificationService.notifyHandLowered(room, participant);
         }
 
-        participant = participantRepository.save(participant);
+        participant = saveParticipant(participant);
         return new ParticipantResponse(participant);
     }
 
@@ -395,7 +428,7 @@ public class RoomParticipantService {
 
         // Update connection quality
         participant.updateConnectionQuality(packetLoss, latency, bandwidth);
-        participant = participantRepository.save(participant);
+        participant = saveParticipant(participant);
 
         // Notify hosts of quality changes
         notificationService.notifyConnectionQualityUpdate(room, participant);
@@ -433,4 +466,13 @@ public class RoomParticipantService {
 
         return stats;
     }
-}
\ No newline at end of file
+
+    /**
+     * Saves the participant and keeps the room's notification roster in step.
+     */
+    private RoomParticipant saveParticipant(RoomParticipant participant) {
+        RoomParticipant saved = participantRepository.save(participant);
+        rosterCache.update(saved);
+        return saved;
+    }
+}
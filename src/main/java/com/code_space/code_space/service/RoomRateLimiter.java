@@ -0,0 +1,189 @@
+package com.code_space.code_space.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limits chat messages and reactions per (room, user) and per room.
+ *
+ * A request must get a token from both its user's bucket and its room's bucket. Under the
+ * REJECT policy a request without tokens fails with {@link RateLimitExceededException};
+ * under QUEUE it waits for its tokens if they become available within the configured
+ * delay. Full buckets hold no state and are swept away, and the number of buckets is
+ * capped, so memory does not grow with the number of users.
+ */
+@Component
+public class RoomRateLimiter {
+
+    public enum Scope { CHAT, REACTION }
+
+    public enum Policy { REJECT, QUEUE }
+
+    @Value("${app.rate-limit.policy:REJECT}")
+    private Policy policy;
+
+    @Value("${app.rate-limit.max-queue-delay-ms:2000}")
+    private long maxQueueDelayMs;
+
+    @Value("${app.rate-limit.max-buckets:100000}")
+    private int maxBuckets;
+
+    @Value("${app.rate-limit.chat.user-per-second:2}")
+    private double chatUserRate;
+
+    @Value("${app.rate-limit.chat.user-burst:10}")
+    private int chatUserBurst;
+
+    @Value("${app.rate-limit.chat.room-per-second:50}")
+    private double chatRoomRate;
+
+    @Value("${app.rate-limit.chat.room-burst:100}")
+    private int chatRoomBurst;
+
+    @Value("${app.rate-limit.reaction.user-per-second:5}")
+    private double reactionUserRate;
+
+    @Value("${app.rate-limit.reaction.user-burst:10}")
+    private int reactionUserBurst;
+
+    @Value("${app.rate-limit.reaction.room-per-second:200}")
+    private double reactionRoomRate;
+
+    @Value("${app.rate-limit.reaction.room-burst:400}")
+    private int reactionRoomBurst;
+
+    private final Map<Scope, Limits> limits = new EnumMap<>(Scope.class);
+    private final Map<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean(false);
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        limits.put(Scope.CHAT, new Limits(chatUserRate, chatUserBurst, chatRoomRate, chatRoomBurst));
+        limits.put(Scope.REACTION, new Limits(reactionUserRate, reactionUserBurst, reactionRoomRate, reactionRoomBurst));
+    }
+
+    /**
+     * Takes a token for the user and the room, waiting for them under the QUEUE policy.
+     *
+     * @throws RateLimitExceededException if either limit is exhausted
+     */
+    public void acquire(Scope scope, Long roomId, String userKey) {
+        Limits scopeLimits = limits.get(scope);
+        long maxWait = policy == Policy.QUEUE ? TimeUnit.MILLISECONDS.toNanos(maxQueueDelayMs) : 0;
+        long now = System.nanoTime();
+
+        TokenBucket userBucket = bucket(new BucketKey(scope, roomId, userKey), now);
+        long userWait = userBucket.reserve(now, scopeLimits.userInterval, scopeLimits.userBurst, maxWait);
+        if (userWait > maxWait) {
+            throw reject(scope, false, userWait - maxWait);
+        }
+
+        TokenBucket roomBucket = bucket(new BucketKey(scope, roomId, null), now);
+        long roomWait = roomBucket.reserve(now, scopeLimits.roomInterval, scopeLimits.roomBurst, maxWait);
+        if (roomWait > maxWait) {
+            userBucket.refund(scopeLimits.userInterval);
+            throw reject(scope, true, roomWait - maxWait);
+        }
+
+        long wait = Math.max(userWait, roomWait);
+        if (wait > 0) {
+            delayed.incrementAndGet();
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for rate limit");
+            }
+        }
+        allowed.incrementAndGet();
+    }
+
+    /**
+     * Drops full buckets, then the stalest ones if the map is still over its cap.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:30000}")
+    public void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            buckets.entrySet().removeIf(entry -> entry.getValue().isFull(now));
+
+            int excess = buckets.size() - maxBuckets;
+            if (excess > 0) {
+                List<Map.Entry<BucketKey, TokenBucket>> entries = new ArrayList<>(buckets.entrySet());
+                entries.sort(Comparator.comparingLong(entry -> entry.getValue().getTheoreticalArrival()));
+                for (int i = 0; i < excess && i < entries.size(); i++) {
+                    buckets.remove(entries.get(i).getKey(), entries.get(i).getValue());
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("policy", policy.name());
+        metrics.put("buckets", buckets.size());
+        metrics.put("allowed", allowed.get());
+        metrics.put("delayed", delayed.get());
+        metrics.put("rejected", rejected.get());
+        return metrics;
+    }
+
+    private TokenBucket bucket(BucketKey key, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxBuckets) {
+            sweep();
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(now));
+    }
+
+    private RateLimitExceededException reject(Scope scope, boolean roomLimit, long retryAfterNanos) {
+        rejected.incrementAndGet();
+        String what = scope == Scope.CHAT ? "messages" : "reactions";
+        String message = roomLimit
+                ? "Too many " + what + " in this room, try again shortly"
+                : "Too many " + what + ", slow down";
+        return new RateLimitExceededException(message, TimeUnit.NANOSECONDS.toMillis(retryAfterNanos));
+    }
+
+    private record BucketKey(Scope scope, Long roomId, String userKey) {
+    }
+
+    private static final class Limits {
+        private final long userInterval;
+        private final int userBurst;
+        private final long roomInterval;
+        private final int roomBurst;
+
+        private Limits(double userPerSecond, int userBurst, double roomPerSecond, int roomBurst) {
+            this.userInterval = (long) (TimeUnit.SECONDS.toNanos(1) / userPerSecond);
+            this.userBurst = userBurst;
+            this.roomInterval = (long) (TimeUnit.SECONDS.toNanos(1) / roomPerSecond);
+            this.roomBurst = roomBurst;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.ParticipantRole;
+import com.code_space.code_space.entity.ParticipantStatus;
+import com.code_space.code_space.entity.RoomParticipant;
+import com.code_space.code_space.repository.RoomParticipantRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-room roster of (userId, role, status) used to address room notifications.
+ *
+ * A room's roster is loaded once with a projection query and then kept current by
+ * {@link RoomParticipantService} after each participant change, so fanning a notification
+ * out to a room costs no queries. Changes are applied once their transaction commits, so
+ * readers never see an uncommitted member and a rolled-back change is simply never applied.
+ *
+ * Rosters are loaded outside the map. Each commit bumps a generation counter for the room's
+ * stripe first, and a load only caches its result if the counter did not move while it
+ * ran, so a load that raced a commit is used once but never cached.
+ */
+@Component
+public class RoomRosterCache {
+
+    private static final int GENERATION_STRIPES = 64;
+
+    @Autowired
+    private RoomParticipantRepository participantRepository;
+
+    private final Map<Long, Map<Long, RosterEntry>> rosters = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public List<RosterEntry> getRoster(Long roomId) {
+        Map<Long, RosterEntry> cached = rosters.get(roomId);
+        if (cached != null) {
+            return new ArrayList<>(cached.values());
+        }
+
+        long generation = generations.get(stripe(roomId));
+        Map<Long, RosterEntry> loaded = load(roomId);
+        Map<Long, RosterEntry> roster = rosters.compute(roomId, (key, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            return generations.get(stripe(roomId)) == generation ? loaded : null;
+        });
+        return new ArrayList<>((roster != null ? roster : loaded).values());
+    }
+
+    /**
+     * Records the participant's current state, once committed, if the room's roster is loaded.
+     */
+    public void update(RoomParticipant participant) {
+        Long roomId = participant.getRoom().getId();
+        RosterEntry entry = new RosterEntry(
+                participant.getId(),
+                participant.getUser() != null ? participant.getUser().getId() : null,
+                participant.getRole(),
+                participant.getStatus()
+        );
+
+        afterCommit(() -> {
+            generations.incrementAndGet(stripe(roomId));
+            rosters.computeIfPresent(roomId, (key, roster) -> {
+                roster.put(entry.participantId(), entry);
+                return roster;
+            });
+        });
+    }
+
+    /**
+     * Drops the room's roster now and again once the surrounding transaction commits, so a
+     * load that ran in between is not kept.
+     */
+    public void invalidate(Long roomId) {
+        evict(roomId);
+        afterCommit(() -> evict(roomId));
+    }
+
+    public int getCachedRoomCount() {
+        return rosters.size();
+    }
+
+    private void evict(Long roomId) {
+        generations.incrementAndGet(stripe(roomId));
+        rosters.remove(roomId);
+    }
+
+    private Map<Long, RosterEntry> load(Long roomId) {
+        Map<Long, RosterEntry> roster = new ConcurrentHashMap<>();
+        for (Object[] row : participantRepository.findRosterByRoomId(roomId)) {
+            Long participantId = (Long) row[0];
+            roster.put(participantId, new RosterEntry(
+                    participantId, (Long) row[1], (ParticipantRole) row[2], (ParticipantStatus) row[3]));
+        }
+        return roster;
+    }
+
+    private int stripe(Long roomId) {
+        return Math.floorMod(roomId.hashCode(), GENERATION_STRIPES);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public record RosterEntry(Long participantId, Long userId, ParticipantRole role, ParticipantStatus status) {
+    }
+}
@@ -53,6 +53,27 @@ public class RoomService {
     @Autowired
     private WebSocketNotificationService notificationService;
 
+    @Autowired
+    private RoomRosterCache rosterCache;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private ChatSearchIndex searchIndex;
+
+    @Autowired
+    private RoomCounters roomCounters;
+
+    @Autowired
+    private ReactionStore reactionStore;
+
+    @Autowired
+    private RoomCache roomCache;
+
+    @Autowired
+    private ActiveParticipantCounter participantCounter;
+
     private static final Logger logger = LoggerFactory.getLogger(RoomService.class);
 
 
@@ -101,7 +122,7 @@ public class RoomService {
         }
 
         // Save room
-        room = roomRepository.save(room);
+        room = saveRoom(room);
 
         // Add host as participant
         participantService.addHostToRoom(room, host);
@@ -163,17 +184,13 @@ public class RoomService {
     }
 
     public RoomResponse getRoomByCode(String roomCode) {
-        Room room = roomRepository.findByRoomCode(roomCode)
-                .orElseThrow(() -> new RuntimeException("Room not found"));
-
-        return new RoomResponse(room);
+        RoomSnapshot room = roomCache.getByCode(roomCode);
+        return room.toResponse(participantCounter.get(room.id()));
     }
 
     public RoomResponse getRoomByInvitationLink(String invitationLink) {
-        Room room = roomRepository.findByInvitationLink(invitationLink)
-                .orElseThrow(() -> new RuntimeException("Invalid invitation link"));
-
-        return new RoomResponse(room);
+        RoomSnapshot room = roomCache.getByInvitationLink(invitationLink);
+        return room.toResponse(participantCounter.get(room.id()));
     }
 
     public List<RoomResponse> getUserRooms(String userEmail, int page, int size) {
@@ -235,9 +252,21 @@ public class RoomService {
             room.setTitle(request.getTitle());
         }
 
+        if (request.getReactionBurstThreshold() != null &&
+                !request.getReactionBurstThreshold().equals(room.getReactionBurstThreshold())) {
+            changes.put("reactionBurstThreshold", change(room.getReactionBurstThreshold(), request.getReactionBurstThreshold()));
+            room.setReactionBurstThreshold(request.getReactionBurstThreshold());
+        }
+
+        if (request.getReactionBurstWindowMs() != null &&
+                !request.getReactionBurstWindowMs().equals(room.getReactionBurstWindowMs())) {
+            changes.put("reactionBurstWindowMs", change(room.getReactionBurstWindowMs(), request.getReactionBurstWindowMs()));
+            room.setReactionBurstWindowMs(request.getReactionBurstWindowMs());
+        }
+
         // ... other field updates with change tracking
 
-        room = roomRepository.save(room);
+        room = saveRoom(room);
 
         // Send notifications for each change
         for (Map.Entry<String, Object> change : changes.entrySet()) {
@@ -254,6 +283,14 @@ public class RoomService {
         return new RoomResponse(room);
     }
 
+    // Map.of does not allow the null a setting has before it is first set
+    private Map<String, Object> change(Object oldValue, Object newValue) {
+        Map<String, Object> change = new HashMap<>();
+        change.put("old", oldValue);
+        change.put("new", newValue);
+        return change;
+    }
+
     public RoomResponse joinRoom(JoinRoomRequest request, String userEmail) {
         Room room = roomRepository.findByRoomCode(request.getRoomCode())
                 .orElseThrow(() -> new RuntimeException("Room not found"));
@@ -337,7 +374,7 @@ public class RoomService {
     private RoomResponse startRoom(Room room) {
         room.setStatus(RoomStatus.ACTIVE);
         room.setActualStartTime(LocalDateTime.now());
-        room = roomRepository.save(room);
+        room = saveRoom(room);
 
         // Send WebSocket notification to all participants
         notificationService.notifyMeetingStarted(room);
@@ -357,10 +394,13 @@ public class RoomService {
 
         room.setStatus(RoomStatus.ENDED);
         room.setActualEndTime(LocalDateTime.now());
-        room = roomRepository.save(room);
+        room = saveRoom(room);
 
         // Update all participants status
         participantService.endMeetingForAllParticipants(room);
+        rosterCache.invalidate(roomId);
+        recentMessageCache.evict(roomId);
+        reactionStore.evict(roomId);
 
         // Send WebSocket notification
         notificationService.notifyMeetingEnded(room);
@@ -385,6 +425,11 @@ public class RoomService {
         }
 
         roomRepository.delete(room);
+        roomCache.invalidate(roomId);
+        rosterCache.invalidate(roomId);
+        recentMessageCache.evict(roomId);
+        searchIndex.evict(roomId);
+        reactionStore.evict(roomId);
     }
 
     // Helper methods
@@ -521,7 +566,7 @@ public class RoomService {
             // Skip the first instance as it's the master room itself
             if (!currentDate.equals(masterRoom.getScheduledStartTime())) {
                 Room instance = createRecurringInstance(masterRoom, currentDate);
-                roomRepository.save(instance);
+                saveRoom(instance);
                 instanceCount++;
             }
 
@@ -626,8 +671,23 @@ public class RoomService {
                 .orElseThrow(() -> new RuntimeException("Room not found"));
     }
 
+    /**
+     * Cached, read-only view of the room for access checks and settings lookups.
+     * Use {@link #getRoomEntityById} when the room is going to be modified.
+     */
+    public RoomSnapshot getRoomSnapshot(Long roomId) {
+        return roomCache.get(roomId);
+    }
+
+    /**
+     * Room reference for associations and queries; loads nothing until a field is read.
+     */
+    public Room getRoomReference(Long roomId) {
+        return roomRepository.getReferenceById(roomId);
+    }
+
     public void verifyHostOrCoHostAccess(Long roomId, String userEmail) {
-        Room room = getRoomEntityById(roomId);
+        RoomSnapshot room = getRoomSnapshot(roomId);
         User user = userService.findByEmail(userEmail);
 
         if (user == null) {
@@ -635,12 +695,12 @@ public class RoomService {
         }
 
         // Check if user is the host
-        if (room.getHost().equals(user)) {
+        if (room.isHost(user.getId())) {
             return;
         }
 
         // Check if user is a co-host
-        Optional<RoomParticipant> participant = participantRepository.findByRoomAndUser(room, user);
+        Optional<RoomParticipant> participant = participantRepository.findByRoomAndUser(getRoomReference(roomId), user);
         if (participant.isPresent() && participant.get().getRole() == ParticipantRole.CO_HOST) {
             return;
         }
@@ -649,20 +709,20 @@ public class RoomService {
     }
 
     public void verifyHostAccess(Long roomId, String userEmail) {
-        Room room = getRoomEntityById(roomId);
+        RoomSnapshot room = getRoomSnapshot(roomId);
         User user = userService.findByEmail(userEmail);
 
         if (user == null) {
             throw new RuntimeException("User not found");
         }
 
-        if (!room.getHost().equals(user)) {
+        if (!room.isHost(user.getId())) {
             throw new RuntimeException("Access denied: Only the host can perform this action");
         }
     }
 
     public boolean isUserInRoom(Long roomId, String userEmail) {
-        Room room = getRoomEntityById(roomId);
+        RoomSnapshot room = getRoomSnapshot(roomId);
         User user = userService.findByEmail(userEmail);
 
         if (user == null) {
@@ -670,15 +730,22 @@ public class RoomService {
         }
 
         // Check if user is host
-        if (room.getHost().equals(user)) {
+        if (room.isHost(user.getId())) {
             return true;
         }
 
         // Check if user is participant
-        return participantRepository.existsByRoomAndUser(room, user);
+        return participantRepository.existsByRoomAndUser(getRoomReference(roomId), user);
     }
     public void updateRoomEntity(Room room) {
-        roomRepository.save(room);
+        saveRoom(room);
+    }
+
+    // Every room write goes through here so RoomCache never keeps serving the old state
+    private Room saveRoom(Room room) {
+        Room saved = roomRepository.save(room);
+        roomCache.invalidate(saved.getId());
+        return saved;
     }
 
     public MeetingStateResponse startRecording(Long roomId, String userEmail) {
@@ -698,7 +765,7 @@ public class RoomService {
         }
 
         room.startRecording();
-        room = roomRepository.save(room);
+        room = saveRoom(room);
 
         // Send WebSocket notification
         notificationService.notifyRecordingStarted(room);
@@ -719,7 +786,7 @@ public class RoomService {
         }
 
         room.stopRecording();
-        room = roomRepository.save(room);
+        room = saveRoom(room);
 
         // Send WebSocket notification
         notificationService.notifyRecordingStopped(room);
@@ -736,7 +803,7 @@ public class RoomService {
         }
 
         room.setIsLocked(true);
-        room = roomRepository.save(room);
+        room = saveRoom(room);
 
         // Send WebSocket notification
         notificationService.notifyMeetingLocked(room);
@@ -753,7 +820,7 @@ public class RoomService {
         }
 
         room.setIsLocked(false);
-        room = roomRepository.save(room);
+        room = saveRoom(room);
 
         // Send WebSocket notification
         notificationService.notifyMeetingUnlocked(room);
@@ -770,7 +837,7 @@ public class RoomService {
         }
 
         room.setActiveSpeakerId(speakerId);
-        room = roomRepository.save(room);
+        room = saveRoom(room);
 
         // Get speaker name for notification
         String speakerName = "Unknown";
@@ -789,10 +856,16 @@ public class RoomService {
     }
 
     public MeetingStateResponse getMeetingState(Long roomId) {
+        // Row and pending counts are read together so a flush in progress is counted exactly once
+        MeetingStateResponse response = roomCounters.readConsistently(() -> {
+            MeetingStateResponse state = new MeetingStateResponse(getRoomEntityById(roomId));
+            state.setTotalMessages(state.getTotalMessages() + roomCounters.getPendingMessagesSent(roomId));
+            state.setTotalReactions(state.getTotalReactions() + roomCounters.getPendingReactionsSent(roomId));
+            return state;
+        });
+        // Already in the persistence context
         Room room = getRoomEntityById(roomId);
 
-        MeetingStateResponse response = new MeetingStateResponse(room);
-
         // Get raised hands
         List<String> raisedHands = participantRepository.findByRoom(room)
                 .stream()
@@ -818,7 +891,7 @@ public class RoomService {
             ).getSeconds();
 
             room.setMeetingDuration(durationSeconds);
-            roomRepository.save(room);
+            saveRoom(room);
         }
     }
 }
\ No newline at end of file
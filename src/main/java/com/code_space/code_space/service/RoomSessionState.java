@@ -0,0 +1,130 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.SessionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Authoritative in-memory state of a room's active session.
+ *
+ * Mutations happen on the room's signaling lane; {@link RoomSessionStateStore} persists
+ * the latest state to {@code room_sessions} whenever it is marked dirty.
+ */
+public class RoomSessionState {
+
+    private final Long roomId;
+    private final String sessionId;
+    private volatile Long entityId;
+    private volatile SessionStatus status;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime endedAt;
+
+    private final Map<String, String> participantConnections = new ConcurrentHashMap<>();
+    private final Map<String, String> mediaStates = new ConcurrentHashMap<>();
+    private volatile List<Map<String, Object>> activeScreenShares = List.of();
+    private volatile String pinnedScreenShare;
+
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private volatile long lastTouched = System.currentTimeMillis();
+
+    RoomSessionState(Long roomId, String sessionId, SessionStatus status, LocalDateTime startedAt) {
+        this.roomId = roomId;
+        this.sessionId = sessionId;
+        this.status = status;
+        this.startedAt = startedAt;
+    }
+
+    public Long getRoomId() { return roomId; }
+    public String getSessionId() { return sessionId; }
+
+    public Long getEntityId() { return entityId; }
+    void setEntityId(Long entityId) { this.entityId = entityId; }
+
+    public SessionStatus getStatus() { return status; }
+    void setStatus(SessionStatus status) { this.status = status; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getEndedAt() { return endedAt; }
+    void setEndedAt(LocalDateTime endedAt) { this.endedAt = endedAt; }
+
+    public String getPinnedScreenShare() { return pinnedScreenShare; }
+    public void setPinnedScreenShare(String pinnedScreenShare) { this.pinnedScreenShare = pinnedScreenShare; }
+
+    // Participant and media state
+
+    public void addParticipant(String participantId, String connectionState) {
+        participantConnections.put(participantId, connectionState);
+    }
+
+    public void removeParticipant(String participantId) {
+        participantConnections.remove(participantId);
+        mediaStates.remove(participantId);
+    }
+
+    public void updateConnectionState(String participantId, String connectionState) {
+        participantConnections.put(participantId, connectionState);
+    }
+
+    public void updateMediaState(String participantId, String mediaState) {
+        mediaStates.put(participantId, mediaState);
+    }
+
+    public Map<String, String> getParticipantConnections() {
+        return new HashMap<>(participantConnections);
+    }
+
+    public Map<String, String> getMediaStates() {
+        return new HashMap<>(mediaStates);
+    }
+
+    // Screen shares
+
+    /**
+     * Returns a mutable copy; write it back with {@link #setActiveScreenShares(List)}.
+     */
+    public List<Map<String, Object>> getActiveScreenShares() {
+        List<Map<String, Object>> copy = new ArrayList<>();
+        for (Map<String, Object> share : activeScreenShares) {
+            copy.add(new HashMap<>(share));
+        }
+        return copy;
+    }
+
+    public void setActiveScreenShares(List<Map<String, Object>> shares) {
+        List<Map<String, Object>> copy = new ArrayList<>();
+        for (Map<String, Object> share : shares) {
+            copy.add(Collections.unmodifiableMap(new HashMap<>(share)));
+        }
+        activeScreenShares = List.copyOf(copy);
+    }
+
+    // Write-behind bookkeeping
+
+    void markDirty() {
+        touch();
+        dirty.set(true);
+    }
+
+    boolean clearDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    boolean isDirty() {
+        return dirty.get();
+    }
+
+    void touch() {
+        lastTouched = System.currentTimeMillis();
+    }
+
+    long getLastTouched() {
+        return lastTouched;
+    }
+}
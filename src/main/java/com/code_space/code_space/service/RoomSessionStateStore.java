@@ -0,0 +1,299 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.Room;
+import com.code_space.code_space.entity.RoomSession;
+import com.code_space.code_space.entity.SessionStatus;
+import com.code_space.code_space.repository.RoomRepository;
+import com.code_space.code_space.repository.RoomSessionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind store for active room sessions.
+ *
+ * Signaling mutates {@link RoomSessionState} in memory and marks it dirty; a scheduled
+ * flush persists only the sessions that changed since the last flush, so a burst of
+ * mute/camera toggles costs one write per room per interval. Sessions that are not
+ * resident (e.g. after a restart) are rehydrated from the last flushed row.
+ *
+ * A state leaves memory once its ENDED status has been written, or once it has sat clean
+ * and empty for {@code webrtc.session.idle-evict-ms}; an evicted state is simply
+ * rehydrated again on next use.
+ *
+ * States are per node, including in clustered mode. Nodes serving the same room each keep
+ * their own copy, seeing only the changes made through them, and flush it to the same row,
+ * so the last flush wins.
+ */
+@Component
+public class RoomSessionStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomSessionStateStore.class);
+
+    @Autowired
+    private RoomSessionRepository sessionRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${webrtc.session.idle-evict-ms:600000}")
+    private long idleEvictMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Long, RoomSessionState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the room's active session, rehydrating or starting one as needed.
+     * Returns null if the room id is not numeric or the room does not exist.
+     */
+    public RoomSessionState getOrCreate(String roomId) {
+        Long id = parseRoomId(roomId);
+        if (id == null) {
+            return null;
+        }
+
+        RoomSessionState resident = states.get(id);
+        if (resident != null && resident.getStatus() == SessionStatus.ENDED && !retireEnded(resident)) {
+            // The previous session's row still reads ACTIVE; starting over now would rehydrate it
+            logger.warn("Not starting a session for room {} until its last one has been closed", id);
+            return null;
+        }
+        if (resident != null && resident.getStatus() != SessionStatus.ENDED) {
+            resident.touch();
+            return resident;
+        }
+
+        // Loaded outside the map so a slow query never holds a map bin; if another caller
+        // got there first, its state wins and ours is discarded unflushed
+        RoomSessionState loaded = loadActiveState(id).orElseGet(() -> {
+            if (!roomRepository.existsById(id)) {
+                logger.warn("Not starting a session for unknown room {}", id);
+                return null;
+            }
+            RoomSessionState state = new RoomSessionState(id, UUID.randomUUID().toString(),
+                    SessionStatus.ACTIVE, LocalDateTime.now());
+            state.markDirty();
+            return state;
+        });
+        if (loaded == null) {
+            return null;
+        }
+
+        RoomSessionState existing = states.putIfAbsent(id, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /**
+     * Returns the room's active session without starting a new one.
+     */
+    public Optional<RoomSessionState> find(String roomId) {
+        Long id = parseRoomId(roomId);
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        RoomSessionState resident = states.get(id);
+        if (resident != null) {
+            if (resident.getStatus() == SessionStatus.ENDED) {
+                return Optional.empty();
+            }
+            resident.touch();
+            return Optional.of(resident);
+        }
+
+        Optional<RoomSessionState> loaded = loadActiveState(id);
+        loaded.ifPresent(state -> states.putIfAbsent(id, state));
+        return loaded.map(state -> states.get(id));
+    }
+
+    public void markDirty(RoomSessionState state) {
+        state.markDirty();
+    }
+
+    /**
+     * Ends the room's active session and flushes it immediately. If that flush fails the
+     * ENDED state stays resident until a scheduled flush writes it.
+     * Returns false if the room had no active session.
+     */
+    public boolean end(String roomId) {
+        Optional<RoomSessionState> stateOpt = find(roomId);
+        if (stateOpt.isEmpty()) {
+            return false;
+        }
+
+        RoomSessionState state = stateOpt.get();
+        state.setStatus(SessionStatus.ENDED);
+        state.setEndedAt(LocalDateTime.now());
+        state.markDirty();
+
+        retireEnded(state);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${webrtc.session.flush-interval-ms:2000}")
+    public void flushDirty() {
+        long idleBefore = System.currentTimeMillis() - idleEvictMs;
+        for (RoomSessionState state : states.values()) {
+            if (state.getStatus() == SessionStatus.ENDED) {
+                retireEnded(state);
+            } else if (state.isDirty()) {
+                flush(state);
+            } else if (state.getLastTouched() < idleBefore && state.getParticipantConnections().isEmpty()) {
+                evict(state);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushDirty();
+    }
+
+    public int getResidentSessionCount() {
+        return states.size();
+    }
+
+    // Persistence
+
+    /**
+     * Drops an ENDED state once its final flush has succeeded, so the row never stays
+     * ACTIVE behind a state that is no longer in memory.
+     */
+    private boolean retireEnded(RoomSessionState state) {
+        if (!flush(state)) {
+            return false;
+        }
+        states.remove(state.getRoomId(), state);
+        return true;
+    }
+
+    private void evict(RoomSessionState state) {
+        if (states.remove(state.getRoomId(), state) && state.isDirty()) {
+            // Changed while being evicted: keep it so the change is flushed, not lost
+            states.putIfAbsent(state.getRoomId(), state);
+        }
+    }
+
+    /**
+     * Returns true if the state is clean afterwards.
+     */
+    private boolean flush(RoomSessionState state) {
+        // The scheduler and endSession may flush the same room concurrently
+        synchronized (state) {
+            return flushLocked(state);
+        }
+    }
+
+    private boolean flushLocked(RoomSessionState state) {
+        if (!state.clearDirty()) {
+            return true;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                RoomSession session = state.getEntityId() != null
+                        ? sessionRepository.findById(state.getEntityId()).orElseGet(() -> newSession(state))
+                        : newSession(state);
+
+                session.setStatus(state.getStatus());
+                session.setStartedAt(state.getStartedAt());
+                session.setEndedAt(state.getEndedAt());
+                session.setPinnedScreenShare(state.getPinnedScreenShare());
+                session.setActiveScreenShares(writeScreenShares(state.getActiveScreenShares()));
+                applyChanges(session.getParticipantConnections(), state.getParticipantConnections());
+                applyChanges(session.getMediaStates(), state.getMediaStates());
+
+                session = sessionRepository.save(session);
+                state.setEntityId(session.getId());
+            });
+            return true;
+        } catch (Exception e) {
+            // Keep the state dirty so the next flush retries it
+            state.markDirty();
+            logger.error("Failed to flush session state for room {}: {}", state.getRoomId(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private RoomSession newSession(RoomSessionState state) {
+        Room room = roomRepository.getReferenceById(state.getRoomId());
+        RoomSession session = new RoomSession(room);
+        session.setSessionId(state.getSessionId());
+        return session;
+    }
+
+    /**
+     * Applies only the entries that changed so Hibernate updates individual collection rows
+     * instead of rewriting the whole collection.
+     */
+    private void applyChanges(Map<String, String> persisted, Map<String, String> current) {
+        persisted.keySet().removeIf(key -> !current.containsKey(key));
+        current.forEach((key, value) -> {
+            if (!value.equals(persisted.get(key))) {
+                persisted.put(key, value);
+            }
+        });
+    }
+
+    private Optional<RoomSessionState> loadActiveState(Long roomId) {
+        return sessionRepository.findByRoomIdAndStatus(roomId, SessionStatus.ACTIVE).map(session -> {
+            RoomSessionState state = new RoomSessionState(roomId, session.getSessionId(),
+                    session.getStatus(), session.getStartedAt());
+            state.setEntityId(session.getId());
+            state.setPinnedScreenShare(session.getPinnedScreenShare());
+            state.setActiveScreenShares(readScreenShares(session.getActiveScreenShares()));
+            session.getParticipantConnections().forEach(state::updateConnectionState);
+            session.getMediaStates().forEach(state::updateMediaState);
+            logger.info("Rehydrated session {} for room {}", session.getSessionId(), roomId);
+            return state;
+        });
+    }
+
+    private List<Map<String, Object>> readScreenShares(String json) {
+        if (json == null) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<List<Map<String, Object>>>() {});
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring unreadable screen share state: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private String writeScreenShares(List<Map<String, Object>> shares) {
+        try {
+            return objectMapper.writeValueAsString(shares);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to write active screen shares", e);
+        }
+    }
+
+    private Long parseRoomId(String roomId) {
+        try {
+            return Long.parseLong(roomId);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid room ID format: {}", roomId);
+            return null;
+        }
+    }
+}
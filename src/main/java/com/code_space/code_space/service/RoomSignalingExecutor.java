@@ -0,0 +1,95 @@
+package com.code_space.code_space.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-room single-writer execution lanes for signaling work.
+ *
+ * Every task submitted for a room runs on a virtual thread, one at a time and in
+ * submission order, so a room's signaling state is only ever mutated by its own lane.
+ * A busy room therefore queues behind itself instead of tying up the inbound
+ * channel threads that every other room shares. Idle lanes are dropped automatically.
+ */
+@Component
+public class RoomSignalingExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomSignalingExecutor.class);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, RoomLane> lanes = new ConcurrentHashMap<>();
+
+    public void execute(String roomId, Runnable task) {
+        // Enqueue inside compute() so a lane can never be retired while a task is being added to it
+        lanes.compute(roomId, (key, lane) -> {
+            RoomLane target = lane != null ? lane : new RoomLane(key);
+            target.enqueue(task);
+            return target;
+        });
+    }
+
+    public int getActiveLaneCount() {
+        return lanes.size();
+    }
+
+    public int getPendingTaskCount(String roomId) {
+        RoomLane lane = lanes.get(roomId);
+        return lane != null ? lane.tasks.size() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private final class RoomLane {
+        private final String roomId;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        private RoomLane(String roomId) {
+            this.roomId = roomId;
+        }
+
+        private void enqueue(Runnable task) {
+            tasks.add(task);
+            if (running.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        logger.error("Signaling task failed in room {}: {}", roomId, e.getMessage(), e);
+                    }
+                }
+
+                running.set(false);
+
+                // A task may have been added between the last poll and releasing the lane
+                if (tasks.isEmpty() || !running.compareAndSet(false, true)) {
+                    break;
+                }
+            }
+
+            lanes.computeIfPresent(roomId, (key, lane) ->
+                    lane == this && !running.get() && tasks.isEmpty() ? null : lane);
+        }
+    }
+}
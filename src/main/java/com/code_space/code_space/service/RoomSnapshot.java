@@ -0,0 +1,140 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.dto.RoomResponse;
+import com.code_space.code_space.dto.UserInfoResponse;
+import com.code_space.code_space.entity.RecurrenceType;
+import com.code_space.code_space.entity.Room;
+import com.code_space.code_space.entity.RoomStatus;
+import com.code_space.code_space.entity.RoomType;
+import com.code_space.code_space.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a room's settings and host, as held by {@link RoomCache}.
+ *
+ * Live counters (messages, reactions, participants) are deliberately left out: they
+ * change without touching {@code updated_at}, which is what the cache checks against.
+ */
+public record RoomSnapshot(
+        Long id,
+        String roomCode,
+        String invitationLink,
+        String title,
+        String description,
+        RoomType type,
+        RoomStatus status,
+        Long hostId,
+        String hostEmail,
+        String hostFirstName,
+        String hostLastName,
+        Boolean hostMfaEnabled,
+        boolean hasPassword,
+        Boolean waitingRoomEnabled,
+        Boolean recordingEnabled,
+        boolean chatEnabled,
+        Boolean screenSharingEnabled,
+        Boolean participantsCanUnmute,
+        Boolean participantsCanShareScreen,
+        Integer maxParticipants,
+        Integer reactionBurstThreshold,
+        Integer reactionBurstWindowMs,
+        boolean locked,
+        LocalDateTime scheduledStartTime,
+        LocalDateTime scheduledEndTime,
+        String timezone,
+        Boolean isRecurring,
+        RecurrenceType recurrenceType,
+        Integer recurrenceInterval,
+        LocalDateTime recurrenceEndDate,
+        LocalDateTime actualStartTime,
+        LocalDateTime actualEndTime,
+        String meetingUrl,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt // the version the snapshot was taken at
+) {
+
+    public static RoomSnapshot of(Room room) {
+        User host = room.getHost();
+        return new RoomSnapshot(
+                room.getId(),
+                room.getRoomCode(),
+                room.getInvitationLink(),
+                room.getTitle(),
+                room.getDescription(),
+                room.getType(),
+                room.getStatus(),
+                host.getId(),
+                host.getEmail(),
+                host.getFirstName(),
+                host.getLastName(),
+                host.getMfaEnabled(),
+                room.hasPassword(),
+                room.getWaitingRoomEnabled(),
+                room.getRecordingEnabled(),
+                Boolean.TRUE.equals(room.getChatEnabled()),
+                room.getScreenSharingEnabled(),
+                room.getParticipantsCanUnmute(),
+                room.getParticipantsCanShareScreen(),
+                room.getMaxParticipants(),
+                room.getReactionBurstThreshold(),
+                room.getReactionBurstWindowMs(),
+                Boolean.TRUE.equals(room.getIsLocked()),
+                room.getScheduledStartTime(),
+                room.getScheduledEndTime(),
+                room.getTimezone(),
+                room.getIsRecurring(),
+                room.getRecurrenceType(),
+                room.getRecurrenceInterval(),
+                room.getRecurrenceEndDate(),
+                room.getActualStartTime(),
+                room.getActualEndTime(),
+                room.getMeetingUrl(),
+                room.getCreatedAt(),
+                room.getUpdatedAt()
+        );
+    }
+
+    public boolean isHost(Long userId) {
+        return hostId.equals(userId);
+    }
+
+    /**
+     * Builds a fresh response, so callers are free to modify it.
+     */
+    public RoomResponse toResponse(int participantCount) {
+        RoomResponse response = new RoomResponse();
+        response.setId(id);
+        response.setRoomCode(roomCode);
+        response.setTitle(title);
+        response.setDescription(description);
+        response.setType(type);
+        response.setStatus(status);
+        response.setHost(new UserInfoResponse(hostId, hostEmail, hostFirstName, hostLastName, hostMfaEnabled));
+        response.setHasPassword(hasPassword);
+        response.setWaitingRoomEnabled(waitingRoomEnabled);
+        response.setRecordingEnabled(recordingEnabled);
+        response.setChatEnabled(chatEnabled);
+        response.setScreenSharingEnabled(screenSharingEnabled);
+        response.setParticipantsCanUnmute(participantsCanUnmute);
+        response.setParticipantsCanShareScreen(participantsCanShareScreen);
+        response.setMaxParticipants(maxParticipants);
+        response.setReactionBurstThreshold(reactionBurstThreshold);
+        response.setReactionBurstWindowMs(reactionBurstWindowMs);
+        response.setScheduledStartTime(scheduledStartTime);
+        response.setScheduledEndTime(scheduledEndTime);
+        response.setTimezone(timezone);
+        response.setIsRecurring(isRecurring);
+        response.setRecurrenceType(recurrenceType);
+        response.setRecurrenceInterval(recurrenceInterval);
+        response.setRecurrenceEndDate(recurrenceEndDate);
+        response.setActualStartTime(actualStartTime);
+        response.setActualEndTime(actualEndTime);
+        response.setMeetingUrl(meetingUrl);
+        response.setInvitationLink(invitationLink);
+        response.setParticipantCount(participantCount);
+        response.setCreatedAt(createdAt);
+        response.setUpdatedAt(updatedAt);
+        return response;
+    }
+}
@@ -0,0 +1,107 @@
+package com.code_space.code_space.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versioned membership changes per room.
+ *
+ * Every join or leave bumps the room's version and is kept in a bounded ring buffer, so a
+ * reconnecting client that reports its last version can be sent just the changes it
+ * missed. The epoch changes whenever a room's log is recreated (e.g. after the session
+ * ends or the node restarts), which tells clients their version no longer applies.
+ *
+ * The log is kept per node, including in clustered mode: each node only sees the joins and
+ * leaves that went through it, and numbers them independently. A client that reconnects to
+ * another node normally gets a snapshot because the epochs differ, but while a room's
+ * members are spread over several nodes the versions in its notifications come from
+ * different logs, so the deltas a node replays can miss changes made elsewhere.
+ */
+@Component
+public class RoomStateLog {
+
+    @Value("${webrtc.state.delta-buffer-size:256}")
+    private int bufferSize;
+
+    private final Map<String, RoomLog> logs = new ConcurrentHashMap<>();
+
+    /**
+     * Records a change and returns the room's new version.
+     */
+    public long append(String roomId, String op, String participantId) {
+        return logs.computeIfAbsent(roomId, k -> new RoomLog(bufferSize)).append(op, participantId);
+    }
+
+    public long getVersion(String roomId) {
+        RoomLog log = logs.get(roomId);
+        return log != null ? log.getVersion() : 0;
+    }
+
+    public String getEpoch(String roomId) {
+        return logs.computeIfAbsent(roomId, k -> new RoomLog(bufferSize)).epoch;
+    }
+
+    /**
+     * Returns the changes after the given version, or empty if the client must take a
+     * full snapshot instead (different epoch, a version the log never issued, or the buffer
+     * no longer reaches back that far).
+     */
+    public Optional<List<Map<String, Object>>> getDeltasSince(String roomId, String epoch, long version) {
+        RoomLog log = logs.get(roomId);
+        if (log == null || !log.epoch.equals(epoch)) {
+            return Optional.empty();
+        }
+        return log.since(version);
+    }
+
+    public void clear(String roomId) {
+        logs.remove(roomId);
+    }
+
+    private static final class RoomLog {
+        private final String epoch = UUID.randomUUID().toString();
+        private final Map<String, Object>[] ring;
+        private long version;
+
+        @SuppressWarnings("unchecked")
+        private RoomLog(int capacity) {
+            this.ring = new Map[capacity];
+        }
+
+        private synchronized long append(String op, String participantId) {
+            version++;
+            Map<String, Object> delta = new HashMap<>();
+            delta.put("version", version);
+            delta.put("op", op);
+            delta.put("participantId", participantId);
+            ring[(int) (version % ring.length)] = delta;
+            return version;
+        }
+
+        private synchronized long getVersion() {
+            return version;
+        }
+
+        private synchronized Optional<List<Map<String, Object>>> since(long from) {
+            // The oldest version still held is version - capacity + 1; versions start at 1,
+            // so a negative one can only come from a confused client
+            if (from < 0 || from > version || from < version - ring.length) {
+                return Optional.empty();
+            }
+
+            List<Map<String, Object>> deltas = new ArrayList<>();
+            for (long v = from + 1; v <= version; v++) {
+                deltas.add(ring[(int) (v % ring.length)]);
+            }
+            return Optional.of(deltas);
+        }
+    }
+}
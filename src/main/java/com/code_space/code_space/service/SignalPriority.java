@@ -0,0 +1,24 @@
+package com.code_space.code_space.service;
+
+/**
+ * Delivery classes for outbound real-time traffic, highest priority first.
+ */
+public enum SignalPriority {
+    /**
+     * Membership, moderation and session lifecycle: never shed.
+     */
+    CONTROL,
+    /**
+     * Offer/answer/ICE and other interactive traffic such as chat.
+     */
+    NEGOTIATION,
+    /**
+     * Status updates, reactions and other traffic a client can miss; shed first.
+     */
+    TELEMETRY;
+
+    /**
+     * Native header carrying the class so the outbound channel can see it per frame.
+     */
+    public static final String HEADER = "x-priority";
+}
@@ -0,0 +1,140 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.dto.webrtc.WebRTCSignalMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers signaling payloads to a room.
+ *
+ * Each payload is encoded to JSON once and the same byte[] is handed to the broker, so
+ * no message converter runs per recipient. Every recipient is reached by exactly one
+ * route: room-wide messages go out as a single frame on {@code /topic/webrtc/{roomId}/signal},
+ * messages for one participant go to {@code /topic/webrtc/{roomId}/signal/{participantId}}.
+ * Sends are queued on the room's {@link PriorityDispatcher} lane under the payload's {@link SignalPriority}.
+ *
+ * Deliveries are counted against the room's members connected to this node, as tracked by
+ * {@link PresenceTracker}, which are the subscribers this node's broker hands the frame to.
+ */
+@Component
+public class SignalingFanout {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalingFanout.class);
+
+    private static final Set<String> NEGOTIATION_TYPES = Set.of("offer", "answer", "ice-candidate", "ice-candidates");
+    private static final Set<String> TELEMETRY_TYPES = Set.of("connection-status-update");
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PriorityDispatcher dispatcher;
+
+    @Autowired
+    private PresenceTracker presenceTracker;
+
+    private final AtomicLong broadcasts = new AtomicLong();
+    private final AtomicLong directSends = new AtomicLong();
+    private final AtomicLong framesPublished = new AtomicLong();
+    private final AtomicLong broadcastDeliveries = new AtomicLong();
+
+    /**
+     * Publishes one frame to the room topic.
+     */
+    public void broadcast(String roomId, Object payload) {
+        byte[] body = encode(payload);
+        if (body == null) {
+            return;
+        }
+
+        publish(roomId, roomTopic(roomId), body, classify(payload));
+        broadcasts.incrementAndGet();
+        broadcastDeliveries.addAndGet(presenceTracker.countInRoom(roomId));
+    }
+
+    public void sendTo(String roomId, String participantId, Object payload) {
+        byte[] body = encode(payload);
+        if (body == null) {
+            return;
+        }
+
+        publish(roomId, roomTopic(roomId) + "/" + participantId, body, classify(payload));
+        directSends.incrementAndGet();
+    }
+
+    public Map<String, Object> getMetrics() {
+        long broadcastCount = broadcasts.get();
+        long directCount = directSends.get();
+        long broadcastDeliveryCount = broadcastDeliveries.get();
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("broadcasts", broadcastCount);
+        metrics.put("directSends", directCount);
+        metrics.put("framesPublished", framesPublished.get());
+        metrics.put("deliveries", broadcastDeliveryCount + directCount);
+        metrics.put("deliveriesPerBroadcast", broadcastCount > 0 ? (double) broadcastDeliveryCount / broadcastCount : 0.0);
+        return metrics;
+    }
+
+    private byte[] encode(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to encode signaling payload {}: {}", payload.getClass().getSimpleName(), e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private SignalPriority classify(Object payload) {
+        String type = null;
+        if (payload instanceof WebRTCSignalMessage signal) {
+            type = signal.getType();
+        } else if (payload instanceof Map<?, ?> map && map.get("type") instanceof String mapType) {
+            type = mapType;
+        }
+
+        if (type != null && NEGOTIATION_TYPES.contains(type)) {
+            return SignalPriority.NEGOTIATION;
+        }
+        if (type != null && TELEMETRY_TYPES.contains(type)) {
+            return SignalPriority.TELEMETRY;
+        }
+        return SignalPriority.CONTROL;
+    }
+
+    private void publish(String roomId, String destination, byte[] body, SignalPriority priority) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        // Native so it survives both the simple broker and an external relay
+        accessor.setNativeHeader(SignalPriority.HEADER, priority.name());
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+
+        dispatcher.submit(roomId, priority, () -> {
+            messagingTemplate.send(destination, message);
+            framesPublished.incrementAndGet();
+        });
+    }
+
+    private String roomTopic(String roomId) {
+        return "/topic/webrtc/" + roomId + "/signal";
+    }
+}
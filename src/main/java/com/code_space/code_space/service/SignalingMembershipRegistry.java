@@ -0,0 +1,35 @@
+package com.code_space.code_space.service;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which participants are in which room's signaling session.
+ *
+ * A single node uses {@link LocalSignalingMembershipRegistry}; clustered nodes share
+ * {@link JpaSignalingMembershipRegistry} so a room's members are known on every node.
+ */
+public interface SignalingMembershipRegistry {
+
+    void join(String roomId, String participantId);
+
+    void leave(String roomId, String participantId);
+
+    /**
+     * Removes every member of the room and returns who they were.
+     */
+    Set<String> clearRoom(String roomId);
+
+    Set<String> getParticipants(String roomId);
+
+    int countParticipants(String roomId);
+
+    /**
+     * Returns the room the participant last joined, or null if none.
+     */
+    String getRoomOf(String participantId);
+
+    Map<String, Set<String>> getRoomParticipants();
+
+    Map<String, String> getParticipantToRoomMapping();
+}
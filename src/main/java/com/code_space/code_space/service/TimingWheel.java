@@ -0,0 +1,91 @@
+package com.code_space.code_space.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel for timeouts shorter than one revolution.
+ *
+ * Scheduling, rescheduling and cancelling are O(1); each {@link #advance()} only touches
+ * the keys that expire on that tick, so cost does not grow with the number of live keys.
+ */
+final class TimingWheel<K> {
+
+    private final long tickMs;
+    private final List<Set<K>> slots;
+    private final Map<K, Integer> slotOf = new HashMap<>();
+    private int cursor;
+
+    TimingWheel(long tickMs, long maxDelayMs) {
+        if (tickMs <= 0 || maxDelayMs < tickMs) {
+            throw new IllegalArgumentException("Invalid timing wheel tick " + tickMs + " ms for max delay " + maxDelayMs + " ms");
+        }
+        this.tickMs = tickMs;
+
+        // One extra slot so the longest delay never lands on the current slot
+        int slotCount = (int) ((maxDelayMs + tickMs - 1) / tickMs) + 1;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Schedules the key to expire after the delay, replacing any earlier deadline.
+     */
+    synchronized void schedule(K key, long delayMs) {
+        long ticks = Math.max(1, (delayMs + tickMs - 1) / tickMs);
+        if (ticks >= slots.size()) {
+            throw new IllegalArgumentException("Delay " + delayMs + " ms exceeds the wheel's range");
+        }
+
+        cancel(key);
+        int slot = (int) ((cursor + ticks) % slots.size());
+        slots.get(slot).add(key);
+        slotOf.put(key, slot);
+    }
+
+    synchronized boolean cancel(K key) {
+        Integer slot = slotOf.remove(key);
+        if (slot == null) {
+            return false;
+        }
+        slots.get(slot).remove(key);
+        return true;
+    }
+
+    /**
+     * Pushes out the deadline of a key that is still scheduled. Returns false if it is not.
+     */
+    synchronized boolean reschedule(K key, long delayMs) {
+        if (!slotOf.containsKey(key)) {
+            return false;
+        }
+        schedule(key, delayMs);
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward one tick and returns the keys that expired.
+     */
+    synchronized List<K> advance() {
+        cursor = (cursor + 1) % slots.size();
+        Set<K> due = slots.get(cursor);
+        if (due.isEmpty()) {
+            return List.of();
+        }
+
+        List<K> expired = new ArrayList<>(due);
+        due.clear();
+        expired.forEach(slotOf::remove);
+        return expired;
+    }
+
+    synchronized int size() {
+        return slotOf.size();
+    }
+}
@@ -0,0 +1,54 @@
+package com.code_space.code_space.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket kept as a single "theoretical arrival time" (the GCRA form).
+ *
+ * Each token pushes the arrival time forward by one emission interval; a request conforms
+ * while the arrival time is no more than {@code burst} intervals ahead of now. A bucket
+ * whose arrival time is in the past is full and carries no state worth keeping.
+ */
+final class TokenBucket {
+
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if one is available within {@code maxWaitNanos}.
+     *
+     * @return the delay before the caller may proceed; the token is only taken when
+     *         this is at most {@code maxWaitNanos}
+     */
+    long reserve(long nowNanos, long intervalNanos, int burst, long maxWaitNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long wait = Math.max(0, next - nowNanos - burst * intervalNanos);
+            if (wait > maxWaitNanos) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #reserve} that ended up unused.
+     */
+    void refund(long intervalNanos) {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+
+    boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+
+    long getTheoreticalArrival() {
+        return theoreticalArrival.get();
+    }
+}
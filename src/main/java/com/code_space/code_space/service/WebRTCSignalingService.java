@@ -3,44 +3,65 @@ package com.code_space.code_space.service;
 import com.code_space.code_space.dto.webrtc.MediaControlMessage;
 import com.code_space.code_space.dto.webrtc.ScreenShareMessage;
 import com.code_space.code_space.dto.webrtc.WebRTCSignalMessage;
-import com.code_space.code_space.entity.Room;
-import com.code_space.code_space.entity.RoomSession;
-import com.code_space.code_space.entity.SessionStatus;
-import com.code_space.code_space.repository.RoomSessionRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.function.Consumer;
+
+/**
+ * Relays WebRTC signaling between participants.
+ *
+ * Inbound frames are handed to the room's lane in {@link RoomSignalingExecutor} and
+ * processed there, so the STOMP inbound threads never wait on the database. Offer,
+ * answer and ICE relay is purely in-memory; session bookkeeping goes to
+ * {@link RoomSessionStateStore}, which persists it behind the lane.
+ */
 @Service
-@Transactional
 public class WebRTCSignalingService {
 
     private static final Logger logger = LoggerFactory.getLogger(WebRTCSignalingService.class);
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private SignalingFanout fanout;
+
+    @Autowired
+    private RoomSessionStateStore sessionStateStore;
 
     @Autowired
-    private RoomSessionRepository sessionRepository;
+    private RoomSignalingExecutor signalingExecutor;
 
     @Autowired
-    private RoomService roomService;
+    private IceCandidateBatcher iceCandidateBatcher;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    // In-memory store for active WebSocket sessions
-    private final Map<String, Set<String>> roomParticipants = new ConcurrentHashMap<>();
-    private final Map<String, String> participantToRoom = new ConcurrentHashMap<>();
+    @Autowired
+    private SignalingMembershipRegistry membershipRegistry;
+
+    @Autowired
+    private PresenceTracker presenceTracker;
+
+    @Autowired
+    private OutboundQueueMonitor outboundQueueMonitor;
+
+    @Autowired
+    private PriorityDispatcher priorityDispatcher;
+
+    @Autowired
+    private NotificationEventDispatcher notificationEventDispatcher;
+
+    @Autowired
+    private RoomStateLog roomStateLog;
+
+    // Connection details for participants connected to this node
     private final Map<String, Map<String, Object>> participantInfo = new ConcurrentHashMap<>();
 
     private static final int MAX_CONCURRENT_SCREENS = 4;
@@ -48,6 +69,10 @@ public class WebRTCSignalingService {
     // WebRTC Signaling Methods
 
     public void handleSignalingMessage(WebRTCSignalMessage message) {
+        signalingExecutor.execute(message.getRoomId(), () -> processSignalingMessage(message));
+    }
+
+    private void processSignalingMessage(WebRTCSignalMessage message) {
         logger.info("Handling signaling message: {} for room: {} from: {}",
                 message.getType(), message.getRoomId(), message.getFromParticipantId());
 
@@ -124,6 +149,56 @@ public class WebRTCSignalingService {
         }
     }
 
+    /**
+     * Opt-in trickle batching: candidates from one peer to another are held for the
+     * batch window, or until end-of-candidates, and then sent as one "ice-candidates" message.
+     */
+    public void handleBatchedIceCandidate(String roomId, String fromParticipantId, String toParticipantId,
+                                          Object candidate, boolean endOfCandidates) {
+        String target = toParticipantId != null && !toParticipantId.isEmpty() ? toParticipantId : null;
+        signalingExecutor.execute(roomId, () ->
+                processBatchedIceCandidate(roomId, fromParticipantId, target, candidate, endOfCandidates));
+    }
+
+    private void processBatchedIceCandidate(String roomId, String fromParticipantId, String toParticipantId,
+                                            Object candidate, boolean endOfCandidates) {
+        boolean opened = iceCandidateBatcher.add(roomId, fromParticipantId, toParticipantId, candidate);
+
+        if (endOfCandidates) {
+            flushIceCandidates(roomId, fromParticipantId, toParticipantId, true);
+        } else if (opened) {
+            iceCandidateBatcher.scheduleFlush(() -> signalingExecutor.execute(roomId, () ->
+                    flushIceCandidates(roomId, fromParticipantId, toParticipantId, false)));
+        }
+    }
+
+    private void flushIceCandidates(String roomId, String fromParticipantId, String toParticipantId,
+                                    boolean endOfCandidates) {
+        List<Object> candidates = iceCandidateBatcher.drain(roomId, fromParticipantId, toParticipantId);
+        if (candidates.isEmpty() && !endOfCandidates) {
+            // Already flushed by end-of-candidates
+            return;
+        }
+
+        Map<String, Object> batch = new HashMap<>();
+        batch.put("type", "ice-candidates");
+        batch.put("roomId", roomId);
+        batch.put("fromParticipantId", fromParticipantId);
+        batch.put("toParticipantId", toParticipantId);
+        batch.put("candidates", candidates);
+        batch.put("endOfCandidates", endOfCandidates);
+        batch.put("timestamp", System.currentTimeMillis());
+
+        logger.debug("Flushing {} ICE candidates from {} to {} in room {}",
+                candidates.size(), fromParticipantId, toParticipantId, roomId);
+
+        if (toParticipantId != null) {
+            sendToParticipant(toParticipantId, roomId, batch);
+        } else {
+            broadcastToRoom(roomId, batch, fromParticipantId);
+        }
+    }
+
     private void handleJoinRoom(WebRTCSignalMessage message) {
         String roomId = message.getRoomId();
         String participantId = message.getFromParticipantId();
@@ -131,9 +206,9 @@ public class WebRTCSignalingService {
         try {
             logger.info("Participant {} joining room {}", participantId, roomId);
 
-            // Add participant to room tracking
-            roomParticipants.computeIfAbsent(roomId, k -> ConcurrentHashMap.newKeySet()).add(participantId);
-            participantToRoom.put(participantId, roomId);
+            // Add participant to room tracking; presence starts here, on the lane, whichever path the join took
+            membershipRegistry.join(roomId, participantId);
+            presenceTracker.register(message.getSessionId(), roomId, participantId);
 
             // Store participant info
             Map<String, Object> info = new HashMap<>();
@@ -143,50 +218,40 @@ public class WebRTCSignalingService {
             participantInfo.put(participantId, info);
 
             // Update or create room session
-            try {
-                Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-                RoomSession session = getOrCreateSession(room);
-                session.addParticipant(participantId, "connected");
-                sessionRepository.save(session);
-            } catch (NumberFormatException e) {
-                logger.warn("Invalid room ID format: {}", roomId);
-            }
+            updateSession(roomId, session -> session.addParticipant(participantId, "connected"));
 
-            // Get current participants list
-            Set<String> participants = roomParticipants.get(roomId);
-            List<String> participantsList = new ArrayList<>(participants != null ? participants : Set.of());
+            long version = roomStateLog.append(roomId, "join", participantId);
+            String epoch = roomStateLog.getEpoch(roomId);
 
-            // Notify other participants about new participant
+            // Notify other participants with a delta; they already hold the rest of the roster
             Map<String, Object> joinNotification = Map.of(
                     "type", "participant-joined",
                     "participantId", participantId,
                     "roomId", roomId,
-                    "participants", participantsList,
+                    "version", version,
+                    "epoch", epoch,
                     "isGuest", participantId.startsWith("guest_"),
                     "timestamp", System.currentTimeMillis()
             );
 
             broadcastToRoom(roomId, joinNotification, participantId);
 
-            // Send current participants list to new participant
-            Map<String, Object> participantsListMessage = Map.of(
-                    "type", "participants-list",
-                    "participants", participantsList,
-                    "roomId", roomId
-            );
-            sendToParticipant(participantId, roomId, participantsListMessage);
+            // A reconnecting client only needs what it missed; anyone else gets a snapshot
+            sendRoomState(participantId, roomId, message.getData(), epoch);
+
+            int participantCount = membershipRegistry.countParticipants(roomId);
 
             // Send room info to new participant
             Map<String, Object> roomInfo = Map.of(
                     "type", "room-info",
                     "roomId", roomId,
-                    "participantCount", participantsList.size(),
+                    "participantCount", participantCount,
                     "sessionStarted", true
             );
             sendToParticipant(participantId, roomId, roomInfo);
 
             logger.info("Participant {} successfully joined room {}. Total participants: {}",
-                    participantId, roomId, participantsList.size());
+                    participantId, roomId, participantCount);
 
         } catch (Exception e) {
             logger.error("Error handling join room for participant {} in room {}: {}",
@@ -194,6 +259,41 @@ public class WebRTCSignalingService {
         }
     }
 
+    private void sendRoomState(String participantId, String roomId, Object joinData, String epoch) {
+        Optional<List<Map<String, Object>>> deltas = Optional.empty();
+        long lastVersion = -1;
+
+        if (joinData instanceof Map<?, ?> data && data.get("lastVersion") instanceof Number last
+                && data.get("epoch") instanceof String clientEpoch) {
+            lastVersion = last.longValue();
+            deltas = roomStateLog.getDeltasSince(roomId, clientEpoch, lastVersion);
+        }
+
+        // Read the version before the roster so the snapshot is never older than its version
+        long version = roomStateLog.getVersion(roomId);
+
+        if (deltas.isPresent()) {
+            Map<String, Object> deltaMessage = new HashMap<>();
+            deltaMessage.put("type", "state-delta");
+            deltaMessage.put("roomId", roomId);
+            deltaMessage.put("epoch", epoch);
+            deltaMessage.put("fromVersion", lastVersion);
+            deltaMessage.put("version", version);
+            deltaMessage.put("deltas", deltas.get());
+            sendToParticipant(participantId, roomId, deltaMessage);
+            return;
+        }
+
+        Map<String, Object> participantsListMessage = Map.of(
+                "type", "participants-list",
+                "participants", new ArrayList<>(membershipRegistry.getParticipants(roomId)),
+                "roomId", roomId,
+                "epoch", epoch,
+                "version", version
+        );
+        sendToParticipant(participantId, roomId, participantsListMessage);
+    }
+
     private void handleLeaveRoom(WebRTCSignalMessage message) {
         String roomId = message.getRoomId();
         String participantId = message.getFromParticipantId();
@@ -205,21 +305,18 @@ public class WebRTCSignalingService {
     // Media Control Methods
 
     public void handleMediaControl(MediaControlMessage message) {
+        signalingExecutor.execute(message.getRoomId(), () -> processMediaControl(message));
+    }
+
+    private void processMediaControl(MediaControlMessage message) {
         try {
             logger.info("Handling media control: {} for participant: {} - enabled: {}",
                     message.getMediaType(), message.getParticipantId(), message.isEnabled());
 
             // Update session media state
-            try {
-                Room room = roomService.getRoomEntityById(Long.parseLong(message.getRoomId()));
-                RoomSession session = getOrCreateSession(room);
-
-                String mediaState = objectMapper.writeValueAsString(message);
-                session.updateMediaState(message.getParticipantId(), mediaState);
-                sessionRepository.save(session);
-            } catch (NumberFormatException e) {
-                logger.warn("Invalid room ID format: {}", message.getRoomId());
-            }
+            String mediaState = objectMapper.writeValueAsString(message);
+            updateSession(message.getRoomId(), session ->
+                    session.updateMediaState(message.getParticipantId(), mediaState));
 
             // Broadcast media control change to all participants
             Map<String, Object> mediaNotification = Map.of(
@@ -241,14 +338,15 @@ public class WebRTCSignalingService {
     // Screen Sharing Methods
 
     public void handleScreenShare(ScreenShareMessage message) {
+        signalingExecutor.execute(message.getRoomId(), () -> processScreenShare(message));
+    }
+
+    private void processScreenShare(ScreenShareMessage message) {
         try {
             logger.info("Handling screen share: {} for participant: {} - sharing: {}",
                     message.isSharing() ? "start" : "stop", message.getParticipantId(), message.isSharing());
 
-            try {
-                Room room = roomService.getRoomEntityById(Long.parseLong(message.getRoomId()));
-                RoomSession session = getOrCreateSession(room);
-
+            updateSession(message.getRoomId(), session -> {
                 if (message.isSharing()) {
                     // Add to active screen shares
                     updateActiveScreenShares(session, message, true);
@@ -261,11 +359,7 @@ public class WebRTCSignalingService {
                         session.setPinnedScreenShare(null);
                     }
                 }
-
-                sessionRepository.save(session);
-            } catch (NumberFormatException e) {
-                logger.warn("Invalid room ID format: {}", message.getRoomId());
-            }
+            });
 
             // Broadcast screen share change to all participants
             Map<String, Object> screenShareNotification = Map.of(
@@ -286,12 +380,12 @@ public class WebRTCSignalingService {
     }
 
     public void pinScreenShare(String roomId, String participantId) {
-        try {
-            Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-            RoomSession session = getOrCreateSession(room);
+        signalingExecutor.execute(roomId, () -> processPinScreenShare(roomId, participantId));
+    }
 
-            session.setPinnedScreenShare(participantId);
-            sessionRepository.save(session);
+    private void processPinScreenShare(String roomId, String participantId) {
+        try {
+            updateSession(roomId, session -> session.setPinnedScreenShare(participantId));
 
             // Broadcast pin change to all participants
             Map<String, Object> pinNotification = Map.of(
@@ -309,12 +403,12 @@ public class WebRTCSignalingService {
     }
 
     public void unpinScreenShare(String roomId) {
-        try {
-            Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-            RoomSession session = getOrCreateSession(room);
+        signalingExecutor.execute(roomId, () -> processUnpinScreenShare(roomId));
+    }
 
-            session.setPinnedScreenShare(null);
-            sessionRepository.save(session);
+    private void processUnpinScreenShare(String roomId) {
+        try {
+            updateSession(roomId, session -> session.setPinnedScreenShare(null));
 
             // Broadcast unpin change to all participants
             Map<String, Object> unpinNotification = Map.of(
@@ -334,38 +428,35 @@ public class WebRTCSignalingService {
      * Tracks a new screen share stream in the session
      */
     public void addScreenShare(String roomId, String participantId, String streamId, String screenTitle) {
-        try {
-            Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-            RoomSession session = getOrCreateSession(room);
-
-            List<Map<String, Object>> activeShares = new ArrayList<>();
-
-            // Parse existing screen shares
-            if (session.getActiveScreenShares() != null) {
-                activeShares = objectMapper.readValue(session.getActiveScreenShares(), new TypeReference<List<Map<String, Object>>>() {});
-            }
-
-            // Check if the participant already has a share
-            boolean alreadySharing = activeShares.stream()
-                    .anyMatch(share -> participantId.equals(share.get("participantId")));
+        signalingExecutor.execute(roomId, () -> processAddScreenShare(roomId, participantId, streamId, screenTitle));
+    }
 
-            // If already sharing, update instead of adding new
-            if (alreadySharing) {
-                activeShares.removeIf(share -> participantId.equals(share.get("participantId")));
-            } else if (activeShares.size() >= MAX_CONCURRENT_SCREENS) {
-                throw new RuntimeException("Maximum number of concurrent screen shares reached (" + MAX_CONCURRENT_SCREENS + ")");
-            }
+    private void processAddScreenShare(String roomId, String participantId, String streamId, String screenTitle) {
+        try {
+            updateSession(roomId, session -> {
+                List<Map<String, Object>> activeShares = session.getActiveScreenShares();
+
+                // Check if the participant already has a share
+                boolean alreadySharing = activeShares.stream()
+                        .anyMatch(share -> participantId.equals(share.get("participantId")));
+
+                // If already sharing, update instead of adding new
+                if (alreadySharing) {
+                    activeShares.removeIf(share -> participantId.equals(share.get("participantId")));
+                } else if (activeShares.size() >= MAX_CONCURRENT_SCREENS) {
+                    throw new RuntimeException("Maximum number of concurrent screen shares reached (" + MAX_CONCURRENT_SCREENS + ")");
+                }
 
-            // Add new screen share
-            Map<String, Object> shareInfo = new HashMap<>();
-            shareInfo.put("participantId", participantId);
-            shareInfo.put("streamId", streamId);
-            shareInfo.put("screenTitle", screenTitle);
-            shareInfo.put("startedAt", System.currentTimeMillis());
-            activeShares.add(shareInfo);
+                // Add new screen share
+                Map<String, Object> shareInfo = new HashMap<>();
+                shareInfo.put("participantId", participantId);
+                shareInfo.put("streamId", streamId);
+                shareInfo.put("screenTitle", screenTitle);
+                shareInfo.put("startedAt", System.currentTimeMillis());
+                activeShares.add(shareInfo);
 
-            session.setActiveScreenShares(objectMapper.writeValueAsString(activeShares));
-            sessionRepository.save(session);
+                session.setActiveScreenShares(activeShares);
+            });
 
             // Notify all participants about the new screen share
             Map<String, Object> notification = Map.of(
@@ -384,27 +475,24 @@ public class WebRTCSignalingService {
     }
 
     public void updateScreenShareInfo(String roomId, String participantId, String streamId, String screenTitle) {
-        try {
-            Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-            RoomSession session = getOrCreateSession(room);
-
-            List<Map<String, Object>> activeShares = new ArrayList<>();
-
-            // Parse existing screen shares
-            if (session.getActiveScreenShares() != null) {
-                activeShares = objectMapper.readValue(session.getActiveScreenShares(), new TypeReference<List<Map<String, Object>>>() {});
-            }
+        signalingExecutor.execute(roomId, () -> processUpdateScreenShareInfo(roomId, participantId, streamId, screenTitle));
+    }
 
-            // Find and update the share
-            for (Map<String, Object> share : activeShares) {
-                if (participantId.equals(share.get("participantId")) && streamId.equals(share.get("streamId"))) {
-                    share.put("screenTitle", screenTitle);
-                    break;
+    private void processUpdateScreenShareInfo(String roomId, String participantId, String streamId, String screenTitle) {
+        try {
+            updateSession(roomId, session -> {
+                List<Map<String, Object>> activeShares = session.getActiveScreenShares();
+
+                // Find and update the share
+                for (Map<String, Object> share : activeShares) {
+                    if (participantId.equals(share.get("participantId")) && streamId.equals(share.get("streamId"))) {
+                        share.put("screenTitle", screenTitle);
+                        break;
+                    }
                 }
-            }
 
-            session.setActiveScreenShares(objectMapper.writeValueAsString(activeShares));
-            sessionRepository.save(session);
+                session.setActiveScreenShares(activeShares);
+            });
 
             // Notify all participants about the updated screen share
             Map<String, Object> notification = Map.of(
@@ -426,44 +514,26 @@ public class WebRTCSignalingService {
      * Get all active screen shares in a room
      */
     public List<Map<String, Object>> getActiveScreenShares(String roomId) {
-        try {
-            Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-            Optional<RoomSession> sessionOpt = sessionRepository.findByRoomAndStatus(room, SessionStatus.ACTIVE);
-
-            if (sessionOpt.isPresent() && sessionOpt.get().getActiveScreenShares() != null) {
-                return objectMapper.readValue(
-                        sessionOpt.get().getActiveScreenShares(),
-                        new TypeReference<List<Map<String, Object>>>() {}
-                );
-            }
-        } catch (Exception e) {
-            logger.error("Failed to get active screen shares: {}", e.getMessage(), e);
-        }
-
-        return new ArrayList<>();
+        return sessionStateStore.find(roomId)
+                .map(RoomSessionState::getActiveScreenShares)
+                .orElseGet(ArrayList::new);
     }
 
     /**
      * Get the pinned screen share for a room
      */
     public Map<String, Object> getPinnedScreenShare(String roomId) {
-        try {
-            Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-            Optional<RoomSession> sessionOpt = sessionRepository.findByRoomAndStatus(room, SessionStatus.ACTIVE);
+        Optional<RoomSessionState> sessionOpt = sessionStateStore.find(roomId);
 
-            if (sessionOpt.isPresent() && sessionOpt.get().getPinnedScreenShare() != null) {
-                String pinnedId = sessionOpt.get().getPinnedScreenShare();
+        if (sessionOpt.isPresent() && sessionOpt.get().getPinnedScreenShare() != null) {
+            String pinnedId = sessionOpt.get().getPinnedScreenShare();
 
-                // Find the screen share details
-                List<Map<String, Object>> screenShares = getActiveScreenShares(roomId);
-                for (Map<String, Object> share : screenShares) {
-                    if (pinnedId.equals(share.get("participantId"))) {
-                        return share;
-                    }
+            // Find the screen share details
+            for (Map<String, Object> share : sessionOpt.get().getActiveScreenShares()) {
+                if (pinnedId.equals(share.get("participantId"))) {
+                    return share;
                 }
             }
-        } catch (Exception e) {
-            logger.error("Failed to get pinned screen share: {}", e.getMessage(), e);
         }
 
         return new HashMap<>();
@@ -471,31 +541,28 @@ public class WebRTCSignalingService {
 
     // Session Management
 
-    public RoomSession getOrCreateSession(Room room) {
-        Optional<RoomSession> existingSession = sessionRepository.findByRoomAndStatus(room, SessionStatus.ACTIVE);
-
-        if (existingSession.isPresent()) {
-            return existingSession.get();
+    /**
+     * Applies a change to the room's in-memory session and marks it for the next flush.
+     * Must be called from the room's lane so changes to one session never interleave.
+     */
+    private void updateSession(String roomId, Consumer<RoomSessionState> mutation) {
+        RoomSessionState session = sessionStateStore.getOrCreate(roomId);
+        if (session == null) {
+            return;
         }
 
-        // Create new session
-        RoomSession session = new RoomSession(room);
-        session.setStatus(SessionStatus.ACTIVE);
-        session.setStartedAt(LocalDateTime.now());
-
-        return sessionRepository.save(session);
+        mutation.accept(session);
+        sessionStateStore.markDirty(session);
     }
 
     public void endSession(String roomId) {
-        try {
-            Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-            Optional<RoomSession> sessionOpt = sessionRepository.findByRoomAndStatus(room, SessionStatus.ACTIVE);
+        signalingExecutor.execute(roomId, () -> processEndSession(roomId));
+    }
 
-            if (sessionOpt.isPresent()) {
-                RoomSession session = sessionOpt.get();
-                session.setStatus(SessionStatus.ENDED);
-                session.setEndedAt(LocalDateTime.now());
-                sessionRepository.save(session);
+    private void processEndSession(String roomId) {
+        try {
+            // Ending flushes the final state immediately rather than waiting for the next interval
+            if (sessionStateStore.end(roomId)) {
 
                 // Notify all participants that session is ending
                 Map<String, Object> sessionEndNotification = Map.of(
@@ -506,14 +573,12 @@ public class WebRTCSignalingService {
                 broadcastToRoom(roomId, sessionEndNotification, null);
 
                 // Clear in-memory tracking
-                Set<String> participants = roomParticipants.remove(roomId);
-                if (participants != null) {
-                    participants.forEach(participantToRoom::remove);
-                    participants.forEach(participantInfo::remove);
-                }
+                Set<String> participants = membershipRegistry.clearRoom(roomId);
+                participants.forEach(participantInfo::remove);
+                participants.forEach(participantId -> presenceTracker.unregister(roomId, participantId));
+                roomStateLog.clear(roomId);
 
-                logger.info("Session ended for room {}. Cleared {} participants.", roomId,
-                        participants != null ? participants.size() : 0);
+                logger.info("Session ended for room {}. Cleared {} participants.", roomId, participants.size());
             }
         } catch (Exception e) {
             logger.error("Error ending session for room {}: {}", roomId, e.getMessage(), e);
@@ -524,46 +589,21 @@ public class WebRTCSignalingService {
 
     private void sendToParticipant(String participantId, String roomId, Object message) {
         try {
-            // Send to user-specific destination
-            messagingTemplate.convertAndSendToUser(
-                    participantId,
-                    "/topic/webrtc/" + roomId + "/signal",
-                    message
-            );
-
-            // Also send to general room topic as fallback
-            messagingTemplate.convertAndSend(
-                    "/topic/webrtc/" + roomId + "/signal/" + participantId,
-                    message
-            );
-
+            fanout.sendTo(roomId, participantId, message);
             logger.debug("Sent message to participant {}: {}", participantId, message.getClass().getSimpleName());
         } catch (Exception e) {
             logger.error("Error sending message to participant {}: {}", participantId, e.getMessage(), e);
         }
     }
 
+    /**
+     * Publishes one frame on the room topic. Every member is subscribed to it, so the
+     * excluded participant (usually the sender) still receives the frame and is expected
+     * to ignore its own messages, as before; the exclusion is only logged.
+     */
     public void broadcastToRoom(String roomId, Object message, String excludeParticipantId) {
         try {
-            // Send to room-wide topic
-            messagingTemplate.convertAndSend(
-                    "/topic/webrtc/" + roomId + "/signal",
-                    message
-            );
-
-            // Also send to individual participants
-            Set<String> participants = roomParticipants.get(roomId);
-            if (participants != null) {
-                participants.stream()
-                        .filter(pid -> excludeParticipantId == null || !pid.equals(excludeParticipantId))
-                        .forEach(pid -> {
-                            try {
-                                sendToParticipant(pid, roomId, message);
-                            } catch (Exception e) {
-                                logger.warn("Failed to send message to participant {}: {}", pid, e.getMessage());
-                            }
-                        });
-            }
+            fanout.broadcast(roomId, message);
 
             logger.debug("Broadcasted message to room {}: {} (excluded: {})",
                     roomId, message.getClass().getSimpleName(), excludeParticipantId);
@@ -574,61 +614,45 @@ public class WebRTCSignalingService {
 
     private void removeParticipantFromRoom(String participantId, String roomId) {
         try {
-            Set<String> participants = roomParticipants.get(roomId);
-            if (participants != null) {
-                participants.remove(participantId);
-
-                // If room is empty, clean up
-                if (participants.isEmpty()) {
-                    roomParticipants.remove(roomId);
-                    logger.info("Room {} is now empty, removed from tracking", roomId);
-                }
-            }
-
-            participantToRoom.remove(participantId);
+            membershipRegistry.leave(roomId, participantId);
             participantInfo.remove(participantId);
+            presenceTracker.unregister(roomId, participantId);
 
             // Update session
-            try {
-                Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-                Optional<RoomSession> sessionOpt = sessionRepository.findByRoomAndStatus(room, SessionStatus.ACTIVE);
-                if (sessionOpt.isPresent()) {
-                    RoomSession session = sessionOpt.get();
-                    session.removeParticipant(participantId);
-                    sessionRepository.save(session);
-                }
-            } catch (NumberFormatException e) {
-                logger.warn("Invalid room ID format: {}", roomId);
-            }
+            sessionStateStore.find(roomId).ifPresent(session -> {
+                session.removeParticipant(participantId);
+                sessionStateStore.markDirty(session);
+            });
 
             // Notify other participants
-            Set<String> remainingParticipants = roomParticipants.get(roomId);
+            long version = roomStateLog.append(roomId, "leave", participantId);
             Map<String, Object> leaveNotification = Map.of(
                     "type", "participant-left",
                     "participantId", participantId,
                     "roomId", roomId,
-                    "participants", remainingParticipants != null ? new ArrayList<>(remainingParticipants) : List.of(),
+                    "version", version,
+                    "epoch", roomStateLog.getEpoch(roomId),
                     "timestamp", System.currentTimeMillis()
             );
             broadcastToRoom(roomId, leaveNotification, null);
 
+            int remaining = membershipRegistry.countParticipants(roomId);
+            if (remaining == 0) {
+                // Nobody left to resync; the next joiner starts a new epoch
+                roomStateLog.clear(roomId);
+            }
+
             logger.info("Participant {} left room {}. Remaining participants: {}",
-                    participantId, roomId, remainingParticipants != null ? remainingParticipants.size() : 0);
+                    participantId, roomId, remaining);
 
         } catch (Exception e) {
             logger.error("Error removing participant {} from room {}: {}", participantId, roomId, e.getMessage(), e);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private void updateActiveScreenShares(RoomSession session, ScreenShareMessage message, boolean isSharing) {
+    private void updateActiveScreenShares(RoomSessionState session, ScreenShareMessage message, boolean isSharing) {
         try {
-            List<Map<String, Object>> activeShares = new ArrayList<>();
-
-            // Parse existing screen shares
-            if (session.getActiveScreenShares() != null) {
-                activeShares = objectMapper.readValue(session.getActiveScreenShares(), List.class);
-            }
+            List<Map<String, Object>> activeShares = session.getActiveScreenShares();
 
             if (isSharing) {
                 // Add new screen share
@@ -642,12 +666,12 @@ public class WebRTCSignalingService {
             } else {
                 // Remove screen share
                 activeShares.removeIf(share ->
-                        message.getParticipantId().equals(((Map<String, Object>) share).get("participantId"))
+                        message.getParticipantId().equals(share.get("participantId"))
                 );
             }
 
-            session.setActiveScreenShares(objectMapper.writeValueAsString(activeShares));
-        } catch (JsonProcessingException e) {
+            session.setActiveScreenShares(activeShares);
+        } catch (RuntimeException e) {
             logger.error("Failed to update active screen shares: {}", e.getMessage(), e);
         }
     }
@@ -655,13 +679,12 @@ public class WebRTCSignalingService {
     // Get session info for frontend
     public Map<String, Object> getSessionInfo(String roomId) {
         try {
-            Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-            Optional<RoomSession> sessionOpt = sessionRepository.findByRoomAndStatus(room, SessionStatus.ACTIVE);
+            Optional<RoomSessionState> sessionOpt = sessionStateStore.find(roomId);
 
-            Set<String> participants = roomParticipants.getOrDefault(roomId, Set.of());
+            Set<String> participants = membershipRegistry.getParticipants(roomId);
 
             if (sessionOpt.isPresent()) {
-                RoomSession session = sessionOpt.get();
+                RoomSessionState session = sessionOpt.get();
 
                 return Map.of(
                         "sessionId", session.getSessionId(),
@@ -669,7 +692,7 @@ public class WebRTCSignalingService {
                         "participants", new ArrayList<>(participants),
                         "participantCount", participants.size(),
                         "pinnedScreenShare", session.getPinnedScreenShare() != null ? session.getPinnedScreenShare() : "",
-                        "activeScreenShares", session.getActiveScreenShares() != null ? session.getActiveScreenShares() : "[]",
+                        "activeScreenShares", objectMapper.writeValueAsString(session.getActiveScreenShares()),
                         "startedAt", session.getStartedAt() != null ? session.getStartedAt().toString() : ""
                 );
             }
@@ -690,19 +713,18 @@ public class WebRTCSignalingService {
     }
 
     public void updateConnectionStatus(String roomId, String participantId, Map<String, Object> statusData) {
-        try {
-            Room room = roomService.getRoomEntityById(Long.parseLong(roomId));
-            RoomSession session = getOrCreateSession(room);
+        signalingExecutor.execute(roomId, () -> processConnectionStatus(roomId, participantId, statusData));
+    }
 
+    private void processConnectionStatus(String roomId, String participantId, Map<String, Object> statusData) {
+        try {
             // Store connection status
             Map<String, Object> connectionInfo = new HashMap<>(statusData);
             connectionInfo.put("timestamp", System.currentTimeMillis());
+            String connectionState = objectMapper.writeValueAsString(connectionInfo);
 
             // Update session's participant connection state
-            Map<String, String> connections = session.getParticipantConnections();
-            connections.put(participantId, objectMapper.writeValueAsString(connectionInfo));
-
-            sessionRepository.save(session);
+            updateSession(roomId, session -> session.updateConnectionState(participantId, connectionState));
 
             // Broadcast connection status to room (for monitoring)
             Map<String, Object> notification = new HashMap<>();
@@ -719,27 +741,36 @@ public class WebRTCSignalingService {
         }
     }
 
+    // Presence
+
+    public void recordHeartbeat(String roomId, String participantId) {
+        if (!presenceTracker.touch(roomId, participantId)) {
+            logger.debug("Heartbeat from untracked participant {} in room {}", participantId, roomId);
+        }
+    }
+
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        for (PresenceTracker.Presence presence : presenceTracker.unregisterSession(event.getSessionId())) {
+            logger.info("Participant {} disconnected from room {}", presence.participantId(), presence.roomId());
+            signalingExecutor.execute(presence.roomId(),
+                    () -> removeParticipantFromRoom(presence.participantId(), presence.roomId()));
+        }
+    }
+
     // Cleanup methods
 
+    /**
+     * Evicts participants that have not been heard from within the presence timeout.
+     */
+    @Scheduled(fixedRateString = "${webrtc.presence.tick-ms:1000}")
     public void cleanupInactiveParticipants() {
         try {
-            long now = System.currentTimeMillis();
-            long timeout = 30000; // 30 seconds timeout
-
-            participantInfo.entrySet().removeIf(entry -> {
-                Map<String, Object> info = entry.getValue();
-                Long joinedAt = (Long) info.get("joinedAt");
-                if (joinedAt != null && (now - joinedAt) > timeout) {
-                    String participantId = entry.getKey();
-                    String roomId = participantToRoom.get(participantId);
-                    if (roomId != null) {
-                        removeParticipantFromRoom(participantId, roomId);
-                    }
-                    return true;
-                }
-                return false;
-            });
-
+            for (PresenceTracker.Presence presence : presenceTracker.advance()) {
+                logger.info("Participant {} in room {} timed out", presence.participantId(), presence.roomId());
+                signalingExecutor.execute(presence.roomId(),
+                        () -> removeParticipantFromRoom(presence.participantId(), presence.roomId()));
+            }
         } catch (Exception e) {
             logger.error("Error during cleanup: {}", e.getMessage(), e);
         }
@@ -748,18 +779,34 @@ public class WebRTCSignalingService {
     // Getters for monitoring
 
     public Map<String, Set<String>> getRoomParticipants() {
-        return new HashMap<>(roomParticipants);
+        return membershipRegistry.getRoomParticipants();
     }
 
     public Map<String, String> getParticipantToRoomMapping() {
-        return new HashMap<>(participantToRoom);
+        return membershipRegistry.getParticipantToRoomMapping();
     }
 
     public int getTotalActiveParticipants() {
-        return participantToRoom.size();
+        return getParticipantToRoomMapping().size();
     }
 
     public int getTotalActiveRooms() {
-        return roomParticipants.size();
+        return getRoomParticipants().size();
+    }
+
+    public int getActiveSignalingLanes() {
+        return signalingExecutor.getActiveLaneCount();
+    }
+
+    public Map<String, Object> getFanoutMetrics() {
+        Map<String, Object> metrics = new HashMap<>(fanout.getMetrics());
+        metrics.put("activeRooms", getTotalActiveRooms());
+        metrics.put("activeParticipants", getTotalActiveParticipants());
+        metrics.put("activeSignalingLanes", getActiveSignalingLanes());
+        metrics.put("trackedPresences", presenceTracker.getTrackedCount());
+        metrics.put("outbound", outboundQueueMonitor.getMetrics());
+        metrics.put("dispatch", priorityDispatcher.getMetrics());
+        metrics.put("notifications", notificationEventDispatcher.getMetrics());
+        return metrics;
     }
 }
\ No newline at end of file
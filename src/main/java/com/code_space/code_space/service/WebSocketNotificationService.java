@@ -6,29 +6,19 @@ import com.code_space.code_space.dto.ReactionResponse;
 import com.code_space.code_space.dto.RoomResponse;
 import com.code_space.code_space.entity.Room;
 import com.code_space.code_space.entity.RoomParticipant;
-import com.code_space.code_space.repository.RoomParticipantRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class WebSocketNotificationService {
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
-
-    @Autowired
-    private RoomParticipantRepository participantRepository;
-
-    @Autowired
-    private EmailService emailService;
-
-
+    private ApplicationEventPublisher eventPublisher;
 
     // Participant Events
     public void notifyParticipantJoined(Room room, RoomParticipant participant) {
@@ -165,41 +155,17 @@ public class WebSocketNotificationService {
         notification.put("data", data);
         notification.put("timestamp", System.currentTimeMillis());
 
-        messagingTemplate.convertAndSendToUser(userId, "/topic/notifications", notification);
+        eventPublisher.publishEvent(NotificationEvent.toUser(userId, "/topic/notifications", notification));
     }
 
     // Helper Methods
     private void sendToRoomParticipants(Room room, String destination, Object notification) {
-        // Send to the general room topic
-        messagingTemplate.convertAndSend(destination, notification);
-
-        // Also send to each participant's personal notification channel
-        List<RoomParticipant> participants = participantRepository.findByRoom(room);
-        for (RoomParticipant participant : participants) {
-            if (participant.getUser() != null) {
-                String userId = participant.getUser().getId().toString();
-                messagingTemplate.convertAndSendToUser(userId, "/topic/room-events", notification);
-            }
-        }
+        eventPublisher.publishEvent(NotificationEvent.toRoom(room.getId(), destination, notification));
     }
 
     private void sendToHostsOnly(Room room, String destination, Object notification) {
-        // Send to host
         String hostId = room.getHost().getId().toString();
-        messagingTemplate.convertAndSendToUser(hostId, destination, notification);
-
-        // Send to co-hosts
-        List<RoomParticipant> coHosts = participantRepository.findByRoom(room)
-                .stream()
-                .filter(p -> p.getRole().name().equals("CO_HOST"))
-                .collect(Collectors.toList());
-
-        for (RoomParticipant coHost : coHosts) {
-            if (coHost.getUser() != null) {
-                String coHostId = coHost.getUser().getId().toString();
-                messagingTemplate.convertAndSendToUser(coHostId, destination, notification);
-            }
-        }
+        eventPublisher.publishEvent(NotificationEvent.toHosts(room.getId(), hostId, destination, notification));
     }
 
     public void sendChatMessageNotification(Room room, ChatMessageResponse message) {
@@ -230,13 +196,26 @@ public class WebSocketNotificationService {
     }
 
     // Reaction Events
-    public void sendReactionNotification(Room room, ReactionResponse reaction) {
+    public void sendReactionNotification(Long roomId, ReactionResponse reaction) {
         Map<String, Object> notification = new HashMap<>();
         notification.put("type", "NEW_REACTION");
         notification.put("reaction", reaction);
         notification.put("timestamp", System.currentTimeMillis());
 
-        sendToRoomParticipants(room, "/topic/room/" + room.getId() + "/reactions", notification);
+        eventPublisher.publishEvent(NotificationEvent.toRoom(roomId, "/topic/room/" + roomId + "/reactions", notification));
+    }
+
+    public void sendReactionBurstNotification(Long roomId, Map<String, Integer> counts, int total,
+                                              List<ReactionResponse> senders, long windowMs) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("type", "REACTION_BURST");
+        notification.put("counts", counts);
+        notification.put("total", total);
+        notification.put("senders", senders);
+        notification.put("windowMs", windowMs);
+        notification.put("timestamp", System.currentTimeMillis());
+
+        eventPublisher.publishEvent(NotificationEvent.toRoom(roomId, "/topic/room/" + roomId + "/reactions", notification));
     }
 
     // Hand Raising Events
@@ -0,0 +1,133 @@
+package com.code_space.code_space.repository;
+
+import com.code_space.code_space.dto.ChatMessageResponse;
+import com.code_space.code_space.entity.ChatMessage;
+import com.code_space.code_space.entity.Room;
+import com.code_space.code_space.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the statements each chat read path issues for a page of messages from several
+ * senders with replies, including building the responses from the loaded entities.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ChatMessageRepositoryTest {
+
+    private static final int SENDERS = 5;
+    private static final int MESSAGES = 40;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Room room;
+    private List<Long> messageIds;
+
+    @BeforeEach
+    void createConversation() {
+        List<User> senders = new ArrayList<>();
+        for (int i = 0; i < SENDERS; i++) {
+            User user = new User("User", "Number" + i, "user" + i + "@example.com", "secret");
+            entityManager.persist(user);
+            senders.add(user);
+        }
+        room = new Room("Standup", senders.get(0));
+        entityManager.persist(room);
+
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            ChatMessage message = new ChatMessage(room, senders.get(i % SENDERS), "Message " + i);
+            // Every other message replies to an earlier one from someone else
+            if (i > 0 && i % 2 == 0) {
+                message.setReplyToMessage(messages.get(i - 1));
+            }
+            messages.add(message);
+        }
+        chatMessageRepository.saveAll(messages);
+        messageIds = messages.stream().map(ChatMessage::getId).toList();
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE chat_messages SET change_seq = id");
+
+        // Every read below starts from an empty persistence context
+        entityManager.clear();
+    }
+
+    @Test
+    void historyPageLoadsSendersAndRepliesInOneStatement() {
+        long statements = countStatements(() ->
+                chatMessageRepository.findByRoomAndIsDeletedFalseOrderBySentAtAsc(room, PageRequest.of(0, 50)).getContent());
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void keysetPageLoadsSendersAndRepliesInOneStatement() {
+        long statements = countStatements(() -> chatMessageRepository.findLatestPage(room, PageRequest.of(0, MESSAGES)));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void recentMessagesLoadSendersAndRepliesInOneStatement() {
+        long statements = countStatements(() -> chatMessageRepository.findTop50ByRoomAndIsDeletedFalseOrderBySentAtDesc(room));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void changeFeedLoadsSendersAndRepliesInOneStatement() {
+        long statements = countStatements(() ->
+                chatMessageRepository.findChangesSince(room.getId(), 0L, PageRequest.of(0, MESSAGES + 1)));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void searchHitsLoadSendersAndRepliesInOneStatement() {
+        long statements = countStatements(() -> chatMessageRepository.findVisibleByIdIn(messageIds));
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void loadingWithoutTheGraphFetchesEachSenderLazily() {
+        // Guards the measurement itself: the plain lookup still pays one load per sender and reply
+        long statements = countStatements(() -> chatMessageRepository.findAllById(messageIds));
+
+        assertTrue(statements > SENDERS, "expected lazy loads, got " + statements + " statements");
+    }
+
+    private long countStatements(Supplier<List<ChatMessage>> read) {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ChatMessage> messages = read.get();
+        List<ChatMessageResponse> responses = messages.stream().map(ChatMessageResponse::new).toList();
+
+        assertEquals(MESSAGES, responses.size());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,151 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.ChatMessage;
+import com.code_space.code_space.entity.Room;
+import com.code_space.code_space.entity.User;
+import com.code_space.code_space.repository.ChatMessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports a transcript through {@link ChatService#exportTranscript} against a real
+ * repository, checking that rows leave the persistence context as they are written
+ * instead of accumulating for the whole export.
+ */
+@DataJpaTest(showSql = false,
+        properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(ChatService.class)
+class ChatTranscriptExportTest {
+
+    private static final int MESSAGES = 5_000;
+
+    @TestConfiguration
+    static class Json {
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+
+    @MockitoBean private RoomService roomService;
+    @MockitoBean private UserService userService;
+    @MockitoBean private WebSocketNotificationService notificationService;
+    @MockitoBean private RecentMessageCache recentMessageCache;
+    @MockitoBean private ChatSearchIndex searchIndex;
+    @MockitoBean private ChatIngestPipeline chatIngestPipeline;
+    @MockitoBean private RoomCounters roomCounters;
+    @MockitoBean private ChatRetentionJob chatRetentionJob;
+    @MockitoBean private ChatChangeLog chatChangeLog;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Room room;
+
+    @BeforeEach
+    void createTranscript() {
+        User user = new User("Ada", "Lovelace", "ada@example.com", "secret");
+        entityManager.persist(user);
+        room = new Room("Standup", user);
+        entityManager.persist(room);
+
+        List<ChatMessage> messages = new ArrayList<>(MESSAGES);
+        for (int i = 1; i <= MESSAGES; i++) {
+            messages.add(new ChatMessage(room, user, "Message number " + i));
+        }
+        ChatMessage deleted = new ChatMessage(room, user, "Never exported");
+        deleted.setIsDeleted(true);
+        messages.add(deleted);
+        chatMessageRepository.saveAll(messages);
+
+        // Start the export from an empty persistence context, as a fresh request would
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void streamsEveryMessageWithoutRetainingEntities() throws IOException {
+        PersistenceContextProbe out = new PersistenceContextProbe(entityManager.unwrap(Session.class));
+
+        long written = chatService.exportTranscript(room.getId(), ChatTranscriptWriter.Format.NDJSON, out);
+
+        assertEquals(MESSAGES, written);
+        assertEquals(MESSAGES, out.lines);
+        assertTrue(out.samples > 1, "export should reach the stream in several chunks");
+        // The sender stays managed; each message is detached once written
+        assertTrue(out.maxManagedEntities <= 2,
+                "persistence context held " + out.maxManagedEntities + " entities during the export");
+    }
+
+    @Test
+    void exportsOldestMessageFirst() throws IOException {
+        PersistenceContextProbe out = new PersistenceContextProbe(entityManager.unwrap(Session.class));
+
+        chatService.exportTranscript(room.getId(), ChatTranscriptWriter.Format.CSV, out);
+
+        assertTrue(out.firstLines.get(1).contains("Message number 1,"), out.firstLines.get(1));
+        assertTrue(out.firstLines.get(2).contains("Message number 2,"), out.firstLines.get(2));
+    }
+
+    /**
+     * Records how many entities the session holds each time the writer flushes a chunk.
+     */
+    private static final class PersistenceContextProbe extends OutputStream {
+        private final Session session;
+        private final List<String> firstLines = new ArrayList<>();
+        private final StringBuilder currentLine = new StringBuilder();
+        private long lines;
+        private int samples;
+        private int maxManagedEntities;
+
+        private PersistenceContextProbe(Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+                if (firstLines.size() < 3) {
+                    firstLines.add(currentLine.toString());
+                }
+                currentLine.setLength(0);
+            } else if (firstLines.size() < 3) {
+                currentLine.append((char) b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            samples++;
+            maxManagedEntities = Math.max(maxManagedEntities, session.getStatistics().getEntityCount());
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.ChatMessage;
+import com.code_space.code_space.entity.Room;
+import com.code_space.code_space.entity.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Row formatting of {@link ChatTranscriptWriter}; the streaming export itself is covered by
+ * {@link ChatTranscriptExportTest}.
+ */
+class ChatTranscriptWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesOneJsonObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ChatTranscriptWriter writer = new ChatTranscriptWriter(ChatTranscriptWriter.Format.NDJSON, out, objectMapper);
+        writer.write(message(7, "hello\nworld"));
+        writer.finish();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, lines.length);
+        JsonNode row = objectMapper.readTree(lines[0]);
+        assertEquals(7, row.get("id").asLong());
+        assertEquals("hello\nworld", row.get("message").asText());
+    }
+
+    @Test
+    void escapesCsvFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ChatTranscriptWriter writer = new ChatTranscriptWriter(ChatTranscriptWriter.Format.CSV, out, objectMapper);
+        writer.write(message(1, "a, \"quoted\" word"));
+        writer.write(message(2, "=SUM(A1:A2)"));
+        writer.finish();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].contains("\"a, \"\"quoted\"\" word\""), lines[1]);
+        assertTrue(lines[2].contains(",'=SUM(A1:A2),"), lines[2]);
+    }
+
+    private static ChatMessage message(long id, String text) {
+        User user = new User("Ada", "Lovelace", "ada@example.com", "secret");
+        ChatMessage message = new ChatMessage(new Room(), user, text);
+        message.setId(id);
+        message.setSentAt(LocalDateTime.of(2024, 1, 1, 9, 0).plusSeconds(id));
+        return message;
+    }
+}
@@ -0,0 +1,170 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.dto.webrtc.WebRTCSignalMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Two signaling nodes, each its own application context, sharing one membership database
+ * and a stub broker relay that routes a frame to whichever node holds the subscription.
+ */
+@DataJpaTest(showSql = false,
+        properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ClusteredSignalingTest {
+
+    private static final long TIMEOUT_MS = 5_000;
+
+    @TestConfiguration
+    static class TwoNodes {
+
+        @Bean
+        JpaSignalingMembershipRegistry nodeA() {
+            return new JpaSignalingMembershipRegistry("node-a");
+        }
+
+        @Bean
+        JpaSignalingMembershipRegistry nodeB() {
+            return new JpaSignalingMembershipRegistry("node-b");
+        }
+    }
+
+    @Autowired
+    private ApplicationContext parent;
+
+    @Autowired
+    @Qualifier("nodeA")
+    private JpaSignalingMembershipRegistry registryA;
+
+    @Autowired
+    @Qualifier("nodeB")
+    private JpaSignalingMembershipRegistry registryB;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StubRelay relay = new StubRelay();
+
+    private AnnotationConfigApplicationContext nodeA;
+    private AnnotationConfigApplicationContext nodeB;
+
+    @BeforeEach
+    void startNodes() {
+        nodeA = startNode("node-a", registryA);
+        nodeB = startNode("node-b", registryB);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void directSendReachesAParticipantConnectedToAnotherNode() throws Exception {
+        relay.subscribe("node-b", "/topic/webrtc/1/signal/bob");
+        signal(nodeB, "join-room", "bob", null);
+        awaitFrame("node-b", frame -> "participants-list".equals(frame.get("type")));
+
+        signal(nodeA, "offer", "alice", "bob");
+
+        Map<?, ?> offer = awaitFrame("node-b", frame -> "offer".equals(frame.get("type")));
+        assertEquals("alice", offer.get("fromParticipantId"));
+        assertTrue(relay.delivered("node-a").isEmpty(), "node A holds no subscription for bob");
+        assertEquals(Set.of("bob"), registryA.getParticipants("1"));
+    }
+
+    private AnnotationConfigApplicationContext startNode(String nodeId, SignalingMembershipRegistry registry) {
+        AnnotationConfigApplicationContext node = new AnnotationConfigApplicationContext();
+        node.setParent(parent);
+        node.setDisplayName(nodeId);
+        // Ready-made singletons; the field name picks this node's registry over both of the parent's
+        ConfigurableListableBeanFactory beans = node.getBeanFactory();
+        beans.registerSingleton("membershipRegistry", registry);
+        beans.registerSingleton("objectMapper", objectMapper);
+        beans.registerSingleton("messagingTemplate", new SimpMessagingTemplate(relay.channel()));
+        beans.registerSingleton("sessionStateStore", mock(RoomSessionStateStore.class));
+        beans.registerSingleton("outboundQueueMonitor", mock(OutboundQueueMonitor.class));
+        beans.registerSingleton("notificationEventDispatcher", mock(NotificationEventDispatcher.class));
+        node.register(WebRTCSignalingService.class, SignalingFanout.class, PriorityDispatcher.class,
+                RoomSignalingExecutor.class, IceCandidateBatcher.class, PresenceTracker.class, RoomStateLog.class);
+        node.refresh();
+        return node;
+    }
+
+    private void signal(ApplicationContext node, String type, String from, String to) {
+        WebRTCSignalMessage message = new WebRTCSignalMessage(type, "1", from, to, null);
+        node.getBean(WebRTCSignalingService.class).handleSignalingMessage(message);
+    }
+
+    private Map<?, ?> awaitFrame(String nodeId, Predicate<Map<?, ?>> match) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            for (Message<?> message : relay.delivered(nodeId)) {
+                Map<?, ?> frame = objectMapper.readValue((byte[]) message.getPayload(), Map.class);
+                if (match.test(frame)) {
+                    return frame;
+                }
+            }
+            Thread.sleep(10);
+        }
+        return fail("no matching frame reached " + nodeId);
+    }
+
+    /**
+     * Stands in for the external STOMP broker: every node publishes into it, and it hands
+     * each frame to the nodes subscribed to its destination.
+     */
+    private static final class StubRelay {
+        private final Map<String, String> subscribers = new ConcurrentHashMap<>();
+        private final Map<String, List<Message<?>>> delivered = new ConcurrentHashMap<>();
+
+        void subscribe(String nodeId, String destination) {
+            subscribers.put(destination, nodeId);
+        }
+
+        List<Message<?>> delivered(String nodeId) {
+            return delivered.computeIfAbsent(nodeId, k -> new CopyOnWriteArrayList<>());
+        }
+
+        MessageChannel channel() {
+            return (message, timeout) -> {
+                String destination = (String) message.getHeaders().get("simpDestination");
+                String nodeId = subscribers.get(destination);
+                if (nodeId != null) {
+                    delivered(nodeId).add(message);
+                }
+                return true;
+            };
+        }
+    }
+}
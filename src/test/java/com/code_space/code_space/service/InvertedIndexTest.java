@@ -0,0 +1,126 @@
+package com.code_space.code_space.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the chat search index against a brute-force scan over a fixed, seeded room.
+ *
+ * The scan applies the index's own semantics: a message matches when, for every query
+ * token, one of its tokens starts with that query token.
+ */
+class InvertedIndexTest {
+
+    private static final int MESSAGES = 20_000;
+    private static final int QUERIES = 100;
+    private static final int PAGE = 100;
+
+    private static final List<String> vocabulary = new ArrayList<>();
+    private static final List<String> messages = new ArrayList<>();
+    private static final List<String> queries = new ArrayList<>();
+    private static final InvertedIndex index = new InvertedIndex();
+
+    @BeforeAll
+    static void buildRoom() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            vocabulary.add(randomWord(random));
+        }
+
+        for (long id = 0; id < MESSAGES; id++) {
+            int words = 5 + random.nextInt(11);
+            StringBuilder message = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    message.append(' ');
+                }
+                message.append(vocabulary.get(random.nextInt(vocabulary.size())));
+            }
+            messages.add(message.toString());
+            index.put(id, message.toString());
+        }
+
+        // Prefixes of real words, as typed into the search box, plus a few two-word queries
+        for (int i = 0; i < QUERIES; i++) {
+            String word = vocabulary.get(random.nextInt(vocabulary.size()));
+            String query = word.substring(0, Math.min(word.length(), 2 + random.nextInt(4)));
+            if (i % 10 == 0) {
+                query += " " + vocabulary.get(random.nextInt(vocabulary.size())).substring(0, 1);
+            }
+            queries.add(query);
+        }
+    }
+
+    @Test
+    void unlimitedSearchMatchesTheScan() {
+        for (String query : queries) {
+            assertEquals(scan(query), new HashSet<>(index.search(query, Integer.MAX_VALUE)),
+                    "results for '" + query + "'");
+        }
+    }
+
+    @Test
+    void limitedSearchReturnsAPageOfTheScanResults() {
+        boolean sawTruncatedPage = false;
+        for (String query : queries) {
+            Set<Long> expected = scan(query);
+            List<Long> page = index.search(query, PAGE);
+
+            assertEquals(Math.min(PAGE, expected.size()), page.size(), "page size for '" + query + "'");
+            assertEquals(page.size(), new HashSet<>(page).size(), "duplicates for '" + query + "'");
+            assertTrue(expected.containsAll(page), "unexpected results for '" + query + "'");
+            sawTruncatedPage |= expected.size() > PAGE;
+        }
+        assertTrue(sawTruncatedPage, "corpus should produce queries with more hits than one page");
+    }
+
+    @Test
+    void exactTermMatchesRankFirst() {
+        InvertedIndex small = new InvertedIndex();
+        small.put(1L, "deployment finished");
+        small.put(2L, "deploy now");
+        small.put(3L, "nothing relevant");
+
+        assertEquals(List.of(2L, 1L), small.search("deploy", 10));
+
+        small.remove(2L);
+        assertEquals(List.of(1L), small.search("deploy", 10));
+    }
+
+    private static Set<Long> scan(String query) {
+        List<String> queryTokens = InvertedIndex.tokenize(query);
+        Set<Long> hits = new HashSet<>();
+        for (int id = 0; id < messages.size(); id++) {
+            List<String> tokens = InvertedIndex.tokenize(messages.get(id));
+            boolean all = true;
+            for (String queryToken : queryTokens) {
+                if (tokens.stream().noneMatch(token -> token.startsWith(queryToken))) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                hits.add((long) id);
+            }
+        }
+        return hits;
+    }
+
+    private static String randomWord(Random random) {
+        int length = 3 + random.nextInt(8);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package com.code_space.code_space.service;
+
+import com.code_space.code_space.entity.SignalingMembership;
+import com.code_space.code_space.entity.SignalingNode;
+import com.code_space.code_space.repository.SignalingMembershipRepository;
+import com.code_space.code_space.repository.SignalingNodeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Two registries sharing one database, standing in for two clustered nodes.
+ */
+@DataJpaTest(showSql = false,
+        properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class JpaSignalingMembershipRegistryTest {
+
+    @TestConfiguration
+    static class TwoNodes {
+
+        @Bean
+        JpaSignalingMembershipRegistry nodeA() {
+            return new JpaSignalingMembershipRegistry("node-a");
+        }
+
+        @Bean
+        JpaSignalingMembershipRegistry nodeB() {
+            return new JpaSignalingMembershipRegistry("node-b");
+        }
+    }
+
+    @Autowired
+    @Qualifier("nodeA")
+    private JpaSignalingMembershipRegistry nodeA;
+
+    @Autowired
+    @Qualifier("nodeB")
+    private JpaSignalingMembershipRegistry nodeB;
+
+    @Autowired
+    private SignalingMembershipRepository membershipRepository;
+
+    @Autowired
+    private SignalingNodeRepository nodeRepository;
+
+    @Test
+    void membershipIsSharedAcrossNodes() {
+        expireCachesImmediately();
+
+        nodeA.join("1", "alice");
+        nodeB.join("1", "bob");
+
+        assertEquals(Set.of("alice", "bob"), nodeA.getParticipants("1"));
+        assertEquals(2, nodeB.countParticipants("1"));
+        assertEquals("1", nodeB.getRoomOf("alice"));
+
+        nodeB.leave("1", "alice");
+
+        assertEquals(Set.of("bob"), nodeA.getParticipants("1"));
+    }
+
+    @Test
+    void localChangesAreServedFromTheCache() {
+        nodeA.join("2", "alice");
+        assertEquals(Set.of("alice"), nodeA.getParticipants("2"));
+
+        // Written behind the cache's back; node A keeps its cached roster until it expires
+        membershipRepository.save(new SignalingMembership("2", "carol", "node-b"));
+        nodeA.join("2", "dave");
+
+        assertEquals(Set.of("alice", "dave"), nodeA.getParticipants("2"));
+        assertEquals(Set.of("alice", "carol", "dave"), nodeB.getParticipants("2"));
+    }
+
+    @Test
+    void sweepRemovesMembershipsOfNodesThatStoppedHeartbeating() {
+        expireCachesImmediately();
+        nodeA.join("3", "alice");
+        nodeB.join("3", "bob");
+
+        // Node A crashed a minute ago: no heartbeat since, and its rows predate the cutoff
+        LocalDateTime minuteAgo = LocalDateTime.now().minusMinutes(1);
+        SignalingNode crashed = nodeRepository.findById("node-a").orElseThrow();
+        crashed.setLastHeartbeatAt(minuteAgo);
+        nodeRepository.save(crashed);
+        for (SignalingMembership membership : membershipRepository.findByRoomId("3")) {
+            membership.setJoinedAt(minuteAgo);
+            membershipRepository.save(membership);
+        }
+        nodeB.heartbeat();
+
+        nodeB.sweepExpiredNodes();
+
+        assertEquals(Set.of("bob"), nodeB.getParticipants("3"));
+        assertNull(nodeB.getRoomOf("alice"));
+        assertEquals(Set.of("node-b"), Set.copyOf(nodeRepository.findAll().stream()
+                .map(SignalingNode::getNodeId).toList()));
+    }
+
+    private void expireCachesImmediately() {
+        ReflectionTestUtils.setField(nodeA, "cacheTtlMs", -1L);
+        ReflectionTestUtils.setField(nodeB, "cacheTtlMs", -1L);
+    }
+}
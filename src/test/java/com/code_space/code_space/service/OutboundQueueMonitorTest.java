@@ -0,0 +1,100 @@
+package com.code_space.code_space.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the outbound stage through a real executor channel whose tasks are run by hand,
+ * so the order frames reach the session handler is deterministic.
+ */
+class OutboundQueueMonitorTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final List<String> handled = new ArrayList<>();
+    private final OutboundQueueMonitor monitor = new OutboundQueueMonitor();
+
+    private ExecutorSubscribableChannel channel;
+
+    @BeforeEach
+    void wireChannel() {
+        ReflectionTestUtils.setField(monitor, "droppableDepth", 64);
+        ReflectionTestUtils.setField(monitor, "maxControlDepth", 256);
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        monitor.register(session);
+
+        channel = new ExecutorSubscribableChannel(tasks::add);
+        channel.addInterceptor(new ExecutorChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                return monitor.schedule(message, channel);
+            }
+
+            @Override
+            public void afterMessageHandled(Message<?> message, MessageChannel channel,
+                                            MessageHandler handler, Exception ex) {
+                monitor.onHandled(message, channel);
+            }
+        });
+        channel.subscribe(message -> handled.add((String) message.getPayload()));
+    }
+
+    @Test
+    void releasesOneFrameAtATimeInPriorityOrder() {
+        channel.send(frame("status-1", SignalPriority.TELEMETRY));
+        channel.send(frame("ice-1", SignalPriority.NEGOTIATION));
+        channel.send(frame("status-2", SignalPriority.TELEMETRY));
+        channel.send(frame("ice-2", SignalPriority.NEGOTIATION));
+        channel.send(frame("end-meeting", SignalPriority.CONTROL));
+
+        // Only the first frame reached the channel; the rest wait in the session's stage
+        assertEquals(1, tasks.size());
+
+        runAll();
+
+        assertEquals(List.of("status-1", "end-meeting", "ice-1", "ice-2", "status-2"), handled);
+    }
+
+    @Test
+    void framesForUnknownSessionsPassStraightThrough() {
+        channel.send(MessageBuilder.withPayload("other").setHeader(SimpMessageHeaderAccessor.SESSION_ID_HEADER, "s2").build());
+        channel.send(MessageBuilder.withPayload("again").setHeader(SimpMessageHeaderAccessor.SESSION_ID_HEADER, "s2").build());
+
+        assertEquals(2, tasks.size());
+    }
+
+    private Message<String> frame(String payload, SignalPriority priority) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("s1");
+        accessor.setDestination("/topic/webrtc/1/signal");
+        accessor.setNativeHeader(SignalPriority.HEADER, priority.name());
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private void runAll() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.code_space.code_space.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomStateLogTest {
+
+    private RoomStateLog log;
+
+    @BeforeEach
+    void setUp() {
+        log = new RoomStateLog();
+        ReflectionTestUtils.setField(log, "bufferSize", 4);
+    }
+
+    @Test
+    void returnsTheChangesAfterTheReportedVersion() {
+        log.append("1", "join", "alice");
+        log.append("1", "join", "bob");
+        log.append("1", "leave", "alice");
+        String epoch = log.getEpoch("1");
+
+        Optional<List<Map<String, Object>>> deltas = log.getDeltasSince("1", epoch, 1);
+
+        assertTrue(deltas.isPresent());
+        assertEquals(List.of(2L, 3L), deltas.get().stream().map(delta -> delta.get("version")).toList());
+    }
+
+    @Test
+    void negativeVersionRequiresAFullSnapshot() {
+        log.append("1", "join", "alice");
+        String epoch = log.getEpoch("1");
+
+        assertTrue(log.getDeltasSince("1", epoch, -1).isEmpty());
+        assertTrue(log.getDeltasSince("1", epoch, -10).isEmpty());
+    }
+
+    @Test
+    void versionsOlderThanTheBufferRequireAFullSnapshot() {
+        for (int i = 0; i < 6; i++) {
+            log.append("1", "join", "p" + i);
+        }
+        String epoch = log.getEpoch("1");
+
+        assertTrue(log.getDeltasSince("1", epoch, 1).isEmpty());
+        assertEquals(4, log.getDeltasSince("1", epoch, 2).orElseThrow().size());
+    }
+
+    @Test
+    void anotherEpochRequiresAFullSnapshot() {
+        log.append("1", "join", "alice");
+
+        assertTrue(log.getDeltasSince("1", "stale-epoch", 0).isEmpty());
+    }
+}